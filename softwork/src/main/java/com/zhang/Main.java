@@ -1,8 +1,18 @@
 package com.zhang;
 
+import com.zhang.generator.ParallelProblemGenerator;
 import com.zhang.generator.ProblemGenerator;
+import com.zhang.grader.BatchGrader;
 import com.zhang.grader.Grader;
+import com.zhang.grader.ParallelGrader;
+import com.zhang.grader.ProblemNumberRuns;
+import com.zhang.server.ProblemServer;
 import com.zhang.utils.CommandLineParser;
+import com.zhang.utils.ProblemSetFile;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 public class Main {
     public static void main(String[] args) {
@@ -11,17 +21,68 @@ public class Main {
             CommandLineParser parser = new CommandLineParser(args);
 
 
-            if (parser.hasExerciseAndAnswerFiles()) {
+            if (parser.hasServePort()) {
+                // 服务模式 - 常驻进程，通过本机 HTTP 接口生成题目和评分
+                int cacheSize = parser.hasEvaluationCacheSize()
+                        ? parser.getEvaluationCacheSize() : Grader.DEFAULT_EVALUATION_CACHE_SIZE;
+                int threads = parser.hasThreads() ? parser.getThreads() : Runtime.getRuntime().availableProcessors();
+                ProblemServer server = new ProblemServer(parser.getServePort(), threads,
+                        new Grader(false, cacheSize), parser.isConstructive(),
+                        ProblemServer.DEFAULT_MAX_PROBLEMS, ProblemServer.DEFAULT_MAX_BODY_SIZE);
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+                server.start();
+                System.out.println("服务已启动: http://127.0.0.1:" + server.getPort() + "/");
+            } else if (parser.hasExerciseAndAnswerFiles() && parser.getToBinaryFile() != null) {
+                // 转换模式 - 文本题目和答案转为二进制题目集
+                long count = ProblemSetFile.fromText(parser.getExerciseFile(), parser.getAnswerFile(), parser.getToBinaryFile());
+                System.out.println("已转换 " + count + " 道题目到 " + parser.getToBinaryFile());
+            } else if (parser.hasExerciseAndAnswerFiles() && parser.getFromBinaryFile() != null) {
+                // 转换模式 - 二进制题目集转为文本题目和答案
+                long count = ProblemSetFile.toText(parser.getFromBinaryFile(), parser.getExerciseFile(), parser.getAnswerFile());
+                System.out.println("已转换 " + count + " 道题目到 " + parser.getExerciseFile() + " 和 " + parser.getAnswerFile());
+            } else if (parser.hasExerciseAndAnswerFiles() && parser.getProblems() != null) {
+                // 评分模式 - 只评判指定的题目，按行索引直接读取
+                int cacheSize = parser.hasEvaluationCacheSize()
+                        ? parser.getEvaluationCacheSize() : Grader.DEFAULT_EVALUATION_CACHE_SIZE;
+                Grader grader = new Grader(parser.useAnswerKey(), cacheSize);
+                grader.gradeSelected(parser.getExerciseFile(), parser.getAnswerFile(),
+                        ProblemNumberRuns.parse(parser.getProblems()));
+            } else if (parser.hasExerciseFileAndAnswers()) {
+                // 批量评分模式 - 多份答案对照同一个题目文件
+                List<Path> answerFiles = BatchGrader.findAnswerFiles(parser.getAnswers());
+                if (answerFiles.isEmpty()) {
+                    throw new IllegalArgumentException("没有找到答案文件: " + parser.getAnswers());
+                }
+                int cacheSize = parser.hasEvaluationCacheSize()
+                        ? parser.getEvaluationCacheSize() : Grader.DEFAULT_EVALUATION_CACHE_SIZE;
+                int threads = parser.hasThreads() ? parser.getThreads() : Runtime.getRuntime().availableProcessors();
+                new BatchGrader(threads, new Grader(parser.useAnswerKey(), cacheSize))
+                        .grade(parser.getExerciseFile(), answerFiles, Paths.get(parser.getReportDirectory()));
+            } else if (parser.hasExerciseAndAnswerFiles()) {
                 // 评分模式 - 检查答案文件
-                Grader grader = new Grader();
-                grader.grade(parser.getExerciseFile(), parser.getAnswerFile());
+                int cacheSize = parser.hasEvaluationCacheSize()
+                        ? parser.getEvaluationCacheSize() : Grader.DEFAULT_EVALUATION_CACHE_SIZE;
+                Grader grader = new Grader(parser.useAnswerKey(), cacheSize);
+                if (parser.getThreads() > 1) {
+                    new ParallelGrader(parser.getThreads(), grader).grade(parser.getExerciseFile(), parser.getAnswerFile());
+                } else {
+                    grader.grade(parser.getExerciseFile(), parser.getAnswerFile());
+                }
             } else if (parser.hasNumberAndRange()) {
                 // 生成模式 - 生成新的题目
                 int count = parser.getNumber();
                 int range = parser.getRange();
 
-                ProblemGenerator generator = new ProblemGenerator(range);
-                generator.generateProblems(count);
+                if (parser.getThreads() > 1 || parser.hasSeed()) {
+                    // 指定种子时结果可重现：相同的种子和线程数生成相同的题目
+                    long seed = parser.hasSeed() ? parser.getSeed() : System.nanoTime();
+                    ParallelProblemGenerator generator = new ParallelProblemGenerator(
+                            range, parser.isConstructive(), parser.getThreads(), seed);
+                    generator.generateProblems(count);
+                } else {
+                    ProblemGenerator generator = new ProblemGenerator(range, parser.isConstructive());
+                    generator.generateProblems(count);
+                }
             } else {
                 // 如果参数不正确，显示帮助信息
                 printHelp();
@@ -35,14 +96,28 @@ public class Main {
     // 打印帮助信息
     private static void printHelp() {
         System.out.println("使用方法:");
-        System.out.println("  生成模式: java -jar Myapp.jar -n <数量> -r <范围>");
-        System.out.println("  评分模式: java -jar Myapp.jar -e <题目文件>.txt -a <答案文件>.txt");
+        System.out.println("  生成模式: java -jar Myapp.jar -n <数量> -r <范围> [--constructive] [--threads <线程数>] [--seed <种子>]");
+        System.out.println("  评分模式: java -jar Myapp.jar -e <题目文件>.txt -a <答案文件>.txt [--threads <线程数>] [--problems <题号>] [--no-answer-key] [--eval-cache <个数>]");
+        System.out.println("  批量评分: java -jar Myapp.jar -e <题目文件>.txt --answers <答案目录或通配符> [--report-dir <目录>] [--threads <线程数>]");
+        System.out.println("  服务模式: java -jar Myapp.jar --serve <端口> [--threads <并发数>] [--constructive] [--eval-cache <个数>]");
+        System.out.println("  转换模式: java -jar Myapp.jar -e <题目文件>.txt -a <答案文件>.txt (--to-binary <题目集> | --from-binary <题目集>)");
         System.out.println("");
         System.out.println("选项:");
         System.out.println("  -n <数量>    要生成的题目数量");
         System.out.println("  -r <范围>    数值范围（自然数、分数和分母）");
-        System.out.println("  -e <文件>    要评分的题目文件");
-        System.out.println("  -a <文件>    要评分的答案文件");
+        System.out.println("  -e <文件>    要评分的题目文件（文本或二进制题目集）");
+        System.out.println("  -a <文件>    要评分的答案文件（文本或二进制题目集）");
+        System.out.println("  --answers <目录|通配符>  批量评分的答案文件，目录表示其中全部 .txt 文件，如 answers/*.txt");
+        System.out.println("  --report-dir <目录>  批量评分的报告目录，每份答案一份报告并生成 Summary.txt（默认 Grades）");
+        System.out.println("  --problems <题号>  只评判指定的题目，如 3,17,100-200（首次使用时在文件旁建立 .idx 行索引）");
+        System.out.println("  --eval-cache <个数>  评分时缓存的表达式个数，相同的表达式只计算一次；0 表示不缓存（默认 " + Grader.DEFAULT_EVALUATION_CACHE_SIZE + "）");
+        System.out.println("  --no-answer-key  评分时不使用也不建立标准答案缓存（题目文件旁的 .key 文件）");
+        System.out.println("  --to-binary <文件>    把 -e、-a 指定的文本文件转换为二进制题目集");
+        System.out.println("  --from-binary <文件>  把二进制题目集转换为 -e、-a 指定的文本文件");
+        System.out.println("  --serve <端口>  在本机启动 HTTP 服务：GET /generate?n=<数量>&r=<范围> 生成题目，POST /grade 评分（题目、空行、答案）");
+        System.out.println("  --constructive  生成时按已生成部分的值选取操作数，避免反复丢弃无效表达式");
+        System.out.println("  --threads <线程数>  生成或评分使用的线程数，大于 1 时并行执行（默认 1，批量评分和服务模式默认为处理器数）");
+        System.out.println("  --seed <种子>  生成题目的随机数种子，相同的种子和线程数生成相同的题目");
     }
 
 }
\ No newline at end of file
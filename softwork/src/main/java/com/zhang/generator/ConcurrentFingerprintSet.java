@@ -0,0 +1,56 @@
+package com.zhang.generator;
+
+/**
+ * 线程安全的指纹集合
+ * 按第二个哈希的高位把指纹分到若干条带，每个条带是一个独立加锁的 FingerprintSet；
+ * 条带内的槽位由第一个哈希的低位决定，两者互不相关，指纹在条带之间分布均匀。
+ */
+public final class ConcurrentFingerprintSet {
+    private static final int STRIPE_BITS = 6; // 64 个条带
+    private final FingerprintSet[] stripes = new FingerprintSet[1 << STRIPE_BITS];
+
+    public ConcurrentFingerprintSet() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize 预计的元素个数，平均分配给各条带
+     */
+    public ConcurrentFingerprintSet(long expectedSize) {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new FingerprintSet(expectedSize / stripes.length + 1);
+        }
+    }
+
+    /**
+     * 加入一个指纹
+     * @return 之前不存在时返回 true
+     */
+    public boolean add(long primary, long secondary) {
+        FingerprintSet stripe = stripe(secondary);
+        synchronized (stripe) {
+            return stripe.add(primary, secondary);
+        }
+    }
+
+    public boolean contains(long primary, long secondary) {
+        FingerprintSet stripe = stripe(secondary);
+        synchronized (stripe) {
+            return stripe.contains(primary, secondary);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (FingerprintSet stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private FingerprintSet stripe(long secondary) {
+        return stripes[(int) (secondary >>> (Long.SIZE - STRIPE_BITS))];
+    }
+}
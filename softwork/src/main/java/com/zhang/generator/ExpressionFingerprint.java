@@ -0,0 +1,89 @@
+package com.zhang.generator;
+
+import com.zhang.model.Expression;
+import com.zhang.model.Fraction;
+
+/**
+ * 表达式规范形式的 128 位指纹
+ * 按 RPN 顺序（与 RPNEvaluator.getCanonicalRPN 相同的规范形式）遍历表达式，计算两个相互独立的 64 位哈希。
+ * 规范形式相同的表达式指纹一定相同；不同的表达式指纹相同的概率约为 2^-128。
+ * 实例保存最近一次计算的结果，非线程安全，每个线程使用自己的实例。
+ */
+final class ExpressionFingerprint {
+    // 两个哈希流使用的乘数（64 位黄金分割数及 MurmurHash3 的常量）
+    private static final long MULTIPLIER1 = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER2 = 0xC2B2AE3D27D4EB4FL;
+    // 标记 RPN 中的数值和运算符，使不同的标记序列不会产生相同的输入
+    private static final long NUMBER_TAG = 0;
+    private static final long BIG_NUMBER_TAG = 1;
+    private static final long OPERATOR_TAG = 2;
+
+    private long hash1;
+    private long hash2;
+
+    /**
+     * 计算表达式的指纹，结果通过 primary()、secondary() 读取
+     */
+    ExpressionFingerprint compute(Expression expression) {
+        hash1 = 0;
+        hash2 = 0x5DEECE66DL;
+        update(expression);
+        hash1 = mix(hash1);
+        hash2 = mix(hash2 ^ (hash2 >>> 17));
+        return this;
+    }
+
+    /**
+     * 第一个哈希，已经过混合，可直接用于定位
+     */
+    long primary() {
+        return hash1;
+    }
+
+    /**
+     * 第二个哈希，用于二次校验
+     */
+    long secondary() {
+        return hash2;
+    }
+
+    private void update(Expression expression) {
+        if (expression.isLeaf()) {
+            Fraction value = expression.getValue();
+            if (value.fitsInLong()) {
+                word(NUMBER_TAG);
+                word(value.getNumerator());
+                word(value.getDenominator());
+            } else {
+                // 超出 long 范围的数值按文本计入，先写入长度保证不同的标记序列互不混淆
+                String text = value.toString();
+                word(BIG_NUMBER_TAG);
+                word(text.length());
+                for (int i = 0; i < text.length(); i++) {
+                    word(text.charAt(i));
+                }
+            }
+            return;
+        }
+        update(expression.getLeft());
+        update(expression.getRight());
+        word(OPERATOR_TAG + expression.getOperator().ordinal());
+    }
+
+    private void word(long value) {
+        hash1 = Long.rotateLeft((hash1 ^ value) * MULTIPLIER1, 31);
+        hash2 = Long.rotateLeft(hash2 + value * MULTIPLIER2, 27) * MULTIPLIER1 + 0x52DCE729;
+    }
+
+    /**
+     * MurmurHash3 的 64 位终结混合
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
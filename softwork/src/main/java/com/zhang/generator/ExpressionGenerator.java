@@ -2,18 +2,40 @@ package com.zhang.generator;
 
 import com.zhang.model.Expression;
 import com.zhang.model.Fraction;
+import com.zhang.model.GcdTable;
 import com.zhang.model.Operator;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 public class ExpressionGenerator {
     private final int range; // 数值范围
-    private final Random random; // 随机数生成器
+    private final RandomGenerator random; // 随机数生成器
+    private final boolean constructive; // 是否按左侧的值构造右操作数，而不是生成后再校验
 
 
     public ExpressionGenerator(int range) {
+        this(range, false);
+    }
+
+    /**
+     * @param constructive 为 true 时使用构造式生成：减法的右操作数不大于左侧的值，
+     *                     除法的除数使商为真分数或整数，几乎不需要丢弃重来
+     */
+    public ExpressionGenerator(int range, boolean constructive) {
+        this(range, constructive, new Random());
+    }
+
+    /**
+     * @param random 随机数来源，传入固定种子的生成器时生成结果可重现
+     */
+    public ExpressionGenerator(int range, boolean constructive, RandomGenerator random) {
         this.range = range;
-        this.random = new Random();
+        this.random = random;
+        this.constructive = constructive;
+        // 按范围预先建立分数规范实例缓存和最大公约数查找表
+        Fraction.cacheRange(range);
+        GcdTable.prepare(range);
     }
 
     /**
@@ -22,25 +44,28 @@ public class ExpressionGenerator {
      * @return 生成的表达式
      */
     public Expression generateExpression(int maxOperators) {
-        // 如果不再需要运算符或随机决定结束表达式，则生成一个数值
-        if (maxOperators == 0 || random.nextInt(3) == 0) {
-            return generateNumber();
-        }
+        while (true) {
+            // 如果不再需要运算符或随机决定结束表达式，则生成一个数值
+            if (maxOperators == 0 || random.nextInt(3) == 0) {
+                return generateNumber();
+            }
 
-        // 生成一个操作
-        Expression left = generateExpression(maxOperators - 1); // 左侧可以是复杂表达式
-        Operator operator = generateOperator(); // 随机选择运算符
-        Expression right = generateExpression(0); // 右侧仅为数值，简化生成过程
+            // 生成一个操作
+            Expression left = generateExpression(maxOperators - 1); // 左侧可以是复杂表达式，生成时已校验
+            Operator operator = generateOperator(); // 随机选择运算符
+            // 右侧仅为数值，简化生成过程；构造模式下按左侧的值选取
+            Expression right = constructive ? generateOperand(left.evaluate(), operator) : generateExpression(0);
+            if (right == null) {
+                continue; // 没有能使这一步运算有效的数值
+            }
 
-        Expression result = new Expression(left, operator, right);
+            Expression result = new Expression(left, operator, right);
 
-        // 检查表达式是否符合要求
-        if (!isValidExpression(result)) {
-            // 如果无效，则重新尝试
-            return generateExpression(maxOperators);
+            // 子表达式都已校验过且值已缓存，只需检查新加入的这一步运算；无效则重新尝试
+            if (isValidOperation(result)) {
+                return result;
+            }
         }
-
-        return result;
     }
 
     /**
@@ -66,9 +91,9 @@ public class ExpressionGenerator {
         // 20%的概率生成带整数部分的分数（带分数）
         if (random.nextInt(5) == 0 && range > 2) {
             int wholeNumber = random.nextInt(range - 1) + 1;
-            return new Fraction(wholeNumber, numerator, denominator);
+            return Fraction.valueOf(wholeNumber, numerator, denominator);
         } else {
-            return new Fraction(numerator, denominator);
+            return Fraction.valueOf(numerator, denominator);
         }
     }
 
@@ -77,7 +102,7 @@ public class ExpressionGenerator {
      */
     public Fraction generateNaturalNumber() {
         int number = random.nextInt(range);
-        return new Fraction(number);
+        return Fraction.valueOf(number);
     }
 
     /**
@@ -89,23 +114,236 @@ public class ExpressionGenerator {
     }
 
     /**
-     * 检查表达式是否有效（符合所有要求）
+     * 构造模式：根据左侧的值和运算符选取右操作数，使这一步运算有效
+     * @return 右操作数，不存在合适的数值时返回 null
      */
-    public boolean isValidExpression(Expression expr) {
-        try {
-            Fraction result = expr.evaluate();
+    private Expression generateOperand(Fraction left, Operator operator) {
+        Fraction value;
+        switch (operator) {
+            case SUBTRACT:
+                value = generateNumberAtMost(left);
+                break;
+            case DIVIDE:
+                value = generateDivisor(left);
+                break;
+            default:
+                return generateNumber();
+        }
+        return value == null ? null : new Expression(value);
+    }
+
+    /**
+     * 生成一个不大于 bound 的数值，自然数与分数的比例与 generateNumber 相同
+     * 0 总是满足条件，因此不会失败
+     */
+    private Fraction generateNumberAtMost(Fraction bound) {
+        if (random.nextInt(10) < 3) {
+            Fraction fraction = generateFractionAtMost(bound);
+            if (fraction != null) {
+                return fraction;
+            }
+        }
+        return Fraction.valueOf(random.nextInt((int) floor(bound, range - 1) + 1));
+    }
+
+    /**
+     * 生成一个不大于 bound 的真分数或带分数，不存在时返回 null
+     */
+    private Fraction generateFractionAtMost(Fraction bound) {
+        // 20%的概率生成带分数，整数部分不超过 bound 的整数部分
+        long maxWhole = floor(bound, range - 1);
+        if (random.nextInt(5) == 0 && range > 2 && maxWhole >= 1) {
+            long whole = random.nextInt((int) maxWhole) + 1;
+            Fraction part = generateProperFractionAtMost(bound.subtract(Fraction.valueOf(whole)));
+            if (part == null && whole > 1) {
+                // 剩余部分不足以放下分数部分时，整数部分减一，此时任何真分数都满足条件
+                whole--;
+                part = generateProperFractionAtMost(bound.subtract(Fraction.valueOf(whole)));
+            }
+            if (part != null) {
+                return Fraction.valueOf(whole).add(part);
+            }
+        }
+        return generateProperFractionAtMost(bound);
+    }
+
+    /**
+     * 生成一个不大于 bound 的真分数，分母不超过 range，不存在时返回 null
+     */
+    private Fraction generateProperFractionAtMost(Fraction bound) {
+        if (range < 2) {
+            return null;
+        }
+        // 先随机选分母，放不下时改用最大的分母
+        long denominator = random.nextInt(range - 1) + 2;
+        long maxNumerator = floor(bound.multiply(Fraction.valueOf(denominator)), denominator - 1);
+        if (maxNumerator < 1) {
+            denominator = range;
+            maxNumerator = floor(bound.multiply(Fraction.valueOf(denominator)), denominator - 1);
+            if (maxNumerator < 1) {
+                return null;
+            }
+        }
+        return Fraction.valueOf(random.nextInt((int) maxNumerator) + 1, denominator);
+    }
+
+    /**
+     * 生成一个大于 bound 且能作为题目数值的数，不存在时返回 null
+     */
+    private Fraction generateNumberAbove(Fraction bound) {
+        long floor = floor(bound, range);
+        long maxWhole = range > 2 ? range - 1 : 0; // 与 generateFraction 相同，range 不大于 2 时没有带分数
+        if (random.nextInt(10) < 3 && floor <= maxWhole) {
+            // 分数：整数部分不小于 bound 的整数部分，相等时分数部分必须大于 bound 的小数部分
+            long whole = floor + random.nextInt((int) (maxWhole - floor + 1));
+            Fraction rest = whole == floor ? bound.subtract(Fraction.valueOf(floor)) : Fraction.valueOf(0);
+            Fraction part = generateProperFractionAbove(rest);
+            if (part != null) {
+                return Fraction.valueOf(whole).add(part);
+            }
+        }
+        if (floor + 1 <= range - 1) {
+            return Fraction.valueOf(floor + 1 + random.nextInt((int) (range - 1 - floor)));
+        }
+        return null;
+    }
+
+    /**
+     * 生成一个大于 bound（0 ≤ bound < 1）的真分数，分母不超过 range，不存在时返回 null
+     */
+    private Fraction generateProperFractionAbove(Fraction bound) {
+        if (range < 2) {
+            return null;
+        }
+        long denominator = random.nextInt(range - 1) + 2;
+        long minNumerator = floor(bound.multiply(Fraction.valueOf(denominator)), denominator) + 1;
+        if (minNumerator > denominator - 1) {
+            denominator = range;
+            minNumerator = floor(bound.multiply(Fraction.valueOf(denominator)), denominator) + 1;
+            if (minNumerator > denominator - 1) {
+                return null;
+            }
+        }
+        return Fraction.valueOf(minNumerator + random.nextInt((int) (denominator - minNumerator)), denominator);
+    }
 
-            // 检查表达式在任何中间步骤中是否包含负数
-            if (hasNegativeIntermediates(expr)) {
-                return false;
+    /**
+     * 生成除数，使 dividend ÷ 除数 为真分数或整数，不存在时返回 null
+     * 一半概率选取大于被除数的数（商为真分数），另一半概率选取被除数的 1/k（商为整数 k）
+     */
+    private Fraction generateDivisor(Fraction dividend) {
+        if (dividend.isZero()) {
+            return generateNumberAbove(Fraction.valueOf(0));
+        }
+        boolean properFirst = random.nextBoolean();
+        if (properFirst) {
+            Fraction divisor = generateNumberAbove(dividend);
+            if (divisor != null) {
+                return divisor;
             }
+        }
+
+        Fraction divisor = generateWholeQuotientDivisor(dividend);
+        if (divisor != null || properFirst) {
+            return divisor;
+        }
+        return generateNumberAbove(dividend);
+    }
+
+    // 选取整数商时的最大尝试次数
+    private static final int MAX_QUOTIENT_ATTEMPTS = 4;
 
-            // 检查除法结果是否为真分数
-            if (hasDivisionWithImproperResult(expr)) {
-                return false;
+    /**
+     * 随机选取整数 k，返回能作为题目数值的 dividend / k，多次尝试失败时返回 null
+     * 设 dividend = p/q，k 不超过 range/q 时 p/(qk) 约分后分母不超过 range；
+     * k 大于 dividend/range 时商小于 range，因此 k 在这个区间内取值时几乎总能成功
+     */
+    private Fraction generateWholeQuotientDivisor(Fraction dividend) {
+        if (!dividend.fitsInLong() || dividend.getDenominator() > range) {
+            return null;
+        }
+        long minQuotient = floor(dividend.divide(Fraction.valueOf(range)), Integer.MAX_VALUE) + 1;
+        long maxQuotient = Math.max(minQuotient, range / dividend.getDenominator());
+        for (int attempt = 0; attempt < MAX_QUOTIENT_ATTEMPTS; attempt++) {
+            long quotient = minQuotient + random.nextInt((int) Math.min(maxQuotient - minQuotient + 1, range));
+            Fraction divisor = dividend.divide(Fraction.valueOf(quotient));
+            if (isRepresentable(divisor)) {
+                return divisor;
             }
+        }
+        return null;
+    }
+
+    /**
+     * 判断正数 value 能否由 generateNumber 生成：小于 range 的自然数，或分母不超过 range 的真分数、带分数
+     */
+    private boolean isRepresentable(Fraction value) {
+        if (!value.fitsInLong() || value.isZero()) {
+            return false;
+        }
+        long numerator = value.getNumerator();
+        long denominator = value.getDenominator();
+        if (denominator == 1) {
+            return numerator <= range - 1;
+        }
+        if (denominator > range) {
+            return false;
+        }
+        long whole = numerator / denominator;
+        return whole == 0 || (range > 2 && whole <= range - 1);
+    }
+
+    /**
+     * 非负数 value 向下取整，结果不超过 cap
+     */
+    private static long floor(Fraction value, long cap) {
+        if (value.compareTo(Fraction.valueOf(cap)) >= 0) {
+            return cap;
+        }
+        // 商小于 cap，但分子分母本身可能超出 long 范围（如很大范围下的连续乘除）
+        if (!value.fitsInLong()) {
+            return value.getBigNumerator().divide(value.getBigDenominator()).longValue();
+        }
+        return value.getNumerator() / value.getDenominator();
+    }
 
-            return result != null && !result.isNegative();
+    /**
+     * 检查表达式是否有效（符合所有要求）
+     * 自底向上后序遍历一次，每个节点的值只计算一次并缓存在节点上
+     */
+    public boolean isValidExpression(Expression expr) {
+        if (expr.isLeaf()) {
+            return !expr.getValue().isNegative();
+        }
+        return isValidExpression(expr.getLeft())
+                && isValidExpression(expr.getRight())
+                && isValidOperation(expr);
+    }
+
+    /**
+     * 检查操作节点本身这一步运算是否有效，假定左右子表达式已经有效
+     * 子表达式的值取自节点缓存，因此检查是常数时间
+     */
+    private boolean isValidOperation(Expression expr) {
+        try {
+            Fraction left = expr.getLeft().evaluate();
+            Fraction right = expr.getRight().evaluate();
+
+            switch (expr.getOperator()) {
+                case SUBTRACT:
+                    // 如果减法操作中左侧小于右侧，会产生负数
+                    return left.compareTo(right) >= 0;
+                case DIVIDE:
+                    if (right.isZero()) {
+                        return false; // 除以零
+                    }
+                    // 确保除法结果是真分数或整数
+                    Fraction result = expr.evaluate();
+                    return result.isProperFraction() || result.isWholeNumber();
+                default:
+                    // 非负数相加、相乘的结果仍为非负数
+                    return !expr.evaluate().isNegative();
+            }
         } catch (ArithmeticException e) {
             return false; // 出现算术异常（如除以零）
         }
@@ -119,17 +357,13 @@ public class ExpressionGenerator {
             return expr.getValue().isNegative();
         }
 
-        if (expr.getOperator() == Operator.SUBTRACT) {
-            Fraction leftValue = expr.getLeft().evaluate();
-            Fraction rightValue = expr.getRight().evaluate();
-
-            // 如果减法操作中左侧小于右侧，会产生负数
-            if (leftValue.compareTo(rightValue) < 0) {
-                return true;
-            }
+        // 如果减法操作中左侧小于右侧，会产生负数
+        if (expr.getOperator() == Operator.SUBTRACT &&
+                expr.getLeft().evaluate().compareTo(expr.getRight().evaluate()) < 0) {
+            return true;
         }
 
-        // 递归检查左右子表达式
+        // 递归检查左右子表达式，子表达式的值已缓存，不会重复计算
         return hasNegativeIntermediates(expr.getLeft()) ||
                 hasNegativeIntermediates(expr.getRight());
     }
@@ -143,14 +377,11 @@ public class ExpressionGenerator {
         }
 
         if (expr.getOperator() == Operator.DIVIDE) {
-            Fraction leftValue = expr.getLeft().evaluate();
-            Fraction rightValue = expr.getRight().evaluate();
-
-            if (rightValue.isZero()) {
+            if (expr.getRight().evaluate().isZero()) {
                 return true; // 除以零
             }
 
-            Fraction result = leftValue.divide(rightValue);
+            Fraction result = expr.evaluate();
             // 确保除法结果是真分数或整数
             if (!result.isProperFraction() && !result.isWholeNumber()) {
                 return true; // 非真分数结果
@@ -0,0 +1,137 @@
+package com.zhang.generator;
+
+import com.zhang.model.Expression;
+
+/**
+ * 按表达式指纹查重的集合
+ * 指纹由 ExpressionFingerprint 计算，包含两个相互独立的 64 位哈希，
+ * 第一个决定在开放寻址表中的位置，第二个在第一个相同时作为二次校验，合起来相当于 128 位指纹。
+ * 表由两个 long 数组组成，每个槽位 16 字节，不为每个题目创建 String 或包装对象。
+ * 槽位数是不小于 元素个数 / 0.75 的 2 的幂，每个元素占 21~43 字节：1 亿道题目需要 2^27 个槽位，共 2GB；
+ * 逐步扩容时最后一次扩容期间新旧两个表同时存在，峰值约 3GB，按预计数量一次分配则没有这个峰值。
+ * 非线程安全。
+ */
+public final class FingerprintSet {
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = 1 << 30; // long 数组长度上限以内最大的 2 的幂
+    private static final double LOAD_FACTOR = 0.75;
+
+    private long[] primaries; // 第一个哈希，0 表示空槽位
+    private long[] secondaries; // 第二个哈希
+    private int mask;
+    private long size = 0;
+    private long threshold;
+
+    private final ExpressionFingerprint fingerprint = new ExpressionFingerprint();
+
+    public FingerprintSet() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize 预计的元素个数，用于一次性分配足够的槽位，避免扩容
+     */
+    public FingerprintSet(long expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * 容纳 expectedSize 个元素而不扩容所需的槽位数
+     */
+    static int capacityFor(long expectedSize) {
+        long wanted = (long) Math.ceil(expectedSize / LOAD_FACTOR);
+        int capacity = MIN_CAPACITY;
+        while (capacity < wanted && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        primaries = new long[capacity];
+        secondaries = new long[capacity];
+        mask = capacity - 1;
+        threshold = (long) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * 加入表达式的指纹
+     * @return 之前不存在时返回 true
+     */
+    public boolean add(Expression expression) {
+        fingerprint.compute(expression);
+        return add(fingerprint.primary(), fingerprint.secondary());
+    }
+
+    /**
+     * 判断集合中是否已有相同规范形式的表达式
+     */
+    public boolean contains(Expression expression) {
+        fingerprint.compute(expression);
+        return contains(fingerprint.primary(), fingerprint.secondary());
+    }
+
+    /**
+     * 加入一个指纹
+     * @return 之前不存在时返回 true
+     */
+    public boolean add(long primary, long secondary) {
+        if (primary == 0) {
+            primary = 1; // 0 留作空槽位标记
+        }
+        int slot = find(primary, secondary);
+        if (primaries[slot] != 0) {
+            return false;
+        }
+        if (size >= threshold) {
+            if (primaries.length == MAX_CAPACITY) {
+                throw new IllegalStateException("指纹表已满: " + size);
+            }
+            resize();
+            slot = find(primary, secondary);
+        }
+        primaries[slot] = primary;
+        secondaries[slot] = secondary;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long primary, long secondary) {
+        if (primary == 0) {
+            primary = 1;
+        }
+        return primaries[find(primary, secondary)] != 0;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 线性探测，返回指纹所在的槽位，不存在时返回应插入的空槽位
+     */
+    private int find(long primary, long secondary) {
+        int slot = (int) primary & mask; // 第一个哈希已经过混合，低位分布均匀
+        while (primaries[slot] != 0) {
+            // 第一个哈希相同时再比较第二个哈希，排除偶然的 64 位碰撞
+            if (primaries[slot] == primary && secondaries[slot] == secondary) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldPrimaries = primaries;
+        long[] oldSecondaries = secondaries;
+        allocate(oldPrimaries.length << 1);
+        for (int i = 0; i < oldPrimaries.length; i++) {
+            if (oldPrimaries[i] != 0) {
+                int slot = find(oldPrimaries[i], oldSecondaries[i]);
+                primaries[slot] = oldPrimaries[i];
+                secondaries[slot] = oldSecondaries[i];
+            }
+        }
+    }
+}
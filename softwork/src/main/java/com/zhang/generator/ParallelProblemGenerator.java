@@ -0,0 +1,239 @@
+package com.zhang.generator;
+
+import com.zhang.model.Expression;
+import com.zhang.utils.Utf8FileWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 多线程生成题目
+ * 每个工作线程使用由种子派生的独立 SplittableRandom 和自己的 ExpressionGenerator，
+ * 把候选题目按固定大小分块交给合并线程；合并线程按 (第 0 块: 线程 0, 1, ...), (第 1 块: 线程 0, 1, ...) 的固定顺序
+ * 逐块查重、编号并写入文件。
+ * 工作线程会跳过已被合并线程接受过的重复题目，这些题目在合并时本来也会被拒绝，
+ * 因此相同的种子和线程数总是生成完全相同的 Exercises.txt 和 Answers.txt。
+ */
+public class ParallelProblemGenerator {
+    private static final int BLOCK_SIZE = 1024; // 每块包含的生成尝试次数
+    private static final int QUEUE_CAPACITY = 4; // 每个工作线程最多领先合并线程的块数
+    private static final int MAX_ATTEMPTS = 10000; // 与 ProblemGenerator 相同：连续这么多次尝试都没有新题目时停止
+    private static final int FLUSH_INTERVAL = 10000; // 每写出这么多道题目刷新一次
+    private static final int MAX_OPERATORS = 3; // 每道题目最多包含的运算符个数，与 ProblemGenerator 相同
+    private static final int ENUMERATION_SHARE = 4; // 与 ProblemGenerator 相同：请求的题目数达到题目空间的 1/4 时改为枚举抽样
+
+    private final int range;
+    private final boolean constructive;
+    private final int threads;
+    private final long seed;
+
+    public ParallelProblemGenerator(int range, boolean constructive, int threads, long seed) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        this.range = range;
+        this.constructive = constructive;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * 生成指定数量的题目并写入文件，输出格式与 ProblemGenerator.generateProblems 相同
+     * @param count 题目数量
+     */
+    public void generateProblems(int count) throws IOException {
+        generateProblems(count, "Exercises.txt", "Answers.txt");
+    }
+
+    /**
+     * 生成指定数量的题目并写入指定的题目文件和答案文件
+     */
+    public void generateProblems(int count, String exerciseFile, String answerFile) throws IOException {
+        // 题目空间不够时提前告警，生成到上限后立即停止
+        int target = count;
+        long capacity = ProblemCapacity.UNKNOWN;
+        if (count > ProblemCapacity.lowerBound(range)) {
+            capacity = ProblemCapacity.count(range, MAX_OPERATORS);
+            if (capacity != ProblemCapacity.UNKNOWN && capacity < count) {
+                System.err.println("Warning: range " + range + " allows only " + capacity
+                        + " unique problems, " + count + " requested.");
+                target = (int) capacity;
+            }
+        }
+
+        // 题目空间较小时直接从全部题目中不放回地抽取，抽样很快，不需要工作线程
+        if (capacity != ProblemCapacity.UNKNOWN && (long) count * ENUMERATION_SHARE >= capacity) {
+            Iterator<Expression> problems = new ProblemEnumerator(range, MAX_OPERATORS).sample(new SplittableRandom(seed));
+            int generated = 0;
+            try (Utf8FileWriter exerciseWriter = new Utf8FileWriter(exerciseFile);
+                 Utf8FileWriter answerWriter = new Utf8FileWriter(answerFile)) {
+                while (generated < target) {
+                    Expression expression = problems.next();
+                    generated++;
+                    exerciseWriter.print(generated).print(". ").print(expression).println(" = ");
+                    answerWriter.print(generated).print(". ").println(expression.evaluate().toString());
+                    if (generated % FLUSH_INTERVAL == 0) {
+                        exerciseWriter.flush();
+                        answerWriter.flush();
+                    }
+                }
+            }
+            printSummary(count, target, generated, exerciseFile, answerFile);
+            return;
+        }
+
+        ConcurrentFingerprintSet accepted = new ConcurrentFingerprintSet(target);
+
+        // 按线程编号依次派生每个线程的随机数生成器，保证可重现
+        SplittableRandom root = new SplittableRandom(seed);
+        List<BlockingQueue<Block>> queues = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<Block> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            queues.add(queue);
+            pool.execute(new Worker(new ExpressionGenerator(range, constructive, root.split()), accepted, queue));
+        }
+
+        int generated = 0;
+        try (Utf8FileWriter exerciseWriter = new Utf8FileWriter(exerciseFile);
+             Utf8FileWriter answerWriter = new Utf8FileWriter(answerFile)) {
+
+            int failures = 0; // 连续没有得到新题目的尝试次数
+            merge:
+            while (generated < target) {
+                for (BlockingQueue<Block> queue : queues) {
+                    Block block = take(queue);
+                    for (int i = 0; i < BLOCK_SIZE; i++) {
+                        if (block.exercises[i] != null && accepted.add(block.primaries[i], block.secondaries[i])) {
+                            generated++;
+                            failures = 0;
+                            exerciseWriter.print(generated).print(". ").print(block.exercises[i]).println(" = ");
+                            answerWriter.print(generated).print(". ").println(block.answers[i]);
+                            if (generated == target) {
+                                break merge;
+                            }
+                            if (generated % FLUSH_INTERVAL == 0) {
+                                exerciseWriter.flush();
+                                answerWriter.flush();
+                            }
+                        } else if (++failures >= MAX_ATTEMPTS) {
+                            System.err.println("After multiple attempts, could not generate more unique problems.");
+                            System.err.println("Warning: Could only generate " + generated + " unique problems.");
+                            break merge;
+                        }
+                    }
+                }
+            }
+        } finally {
+            // 中断仍在生成或等待放入队列的工作线程
+            pool.shutdownNow();
+        }
+
+        printSummary(count, target, generated, exerciseFile, answerFile);
+    }
+
+    private static void printSummary(int count, int target, int generated, String exerciseFile, String answerFile) {
+        // 没有达到上限就停止的情况已在合并时告警
+        if (generated < count && generated == target) {
+            System.err.println("Warning: Could only generate " + generated + " unique problems.");
+        }
+        System.out.println("Generated " + generated + " problems.");
+        System.out.println("Problems saved to " + exerciseFile);
+        System.out.println("Answers saved to " + answerFile);
+    }
+
+    private static Block take(BlockingQueue<Block> queue) throws IOException {
+        Block block;
+        try {
+            block = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("生成被中断", e);
+        }
+        if (block.error != null) {
+            if (block.error instanceof RuntimeException) {
+                throw (RuntimeException) block.error;
+            }
+            throw new IOException(block.error);
+        }
+        return block;
+    }
+
+    /**
+     * 一个工作线程连续 BLOCK_SIZE 次生成尝试的结果，无效或已知重复的尝试对应位置为 null
+     */
+    private static final class Block {
+        final String[] exercises = new String[BLOCK_SIZE];
+        final String[] answers = new String[BLOCK_SIZE];
+        final long[] primaries = new long[BLOCK_SIZE];
+        final long[] secondaries = new long[BLOCK_SIZE];
+        Throwable error; // 工作线程出错时传给合并线程
+
+        Block() {
+        }
+
+        Block(Throwable error) {
+            this.error = error;
+        }
+    }
+
+    private static final class Worker implements Runnable {
+        private final ExpressionGenerator generator;
+        private final ConcurrentFingerprintSet accepted;
+        private final BlockingQueue<Block> queue;
+        private final ExpressionFingerprint fingerprint = new ExpressionFingerprint();
+
+        Worker(ExpressionGenerator generator, ConcurrentFingerprintSet accepted, BlockingQueue<Block> queue) {
+            this.generator = generator;
+            this.accepted = accepted;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    queue.put(nextBlock());
+                }
+            } catch (InterruptedException e) {
+                // 合并线程已完成
+            } catch (Throwable e) {
+                try {
+                    queue.put(new Block(e));
+                } catch (InterruptedException ignored) {
+                    // 合并线程已完成
+                }
+            }
+        }
+
+        private Block nextBlock() {
+            Block block = new Block();
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                // 生成一个最多包含3个运算符的表达式，至少包含一个运算符才有效
+                Expression expression = generator.generateExpression(MAX_OPERATORS);
+                if (expression.isLeaf()) {
+                    continue;
+                }
+
+                fingerprint.compute(expression);
+                if (accepted.contains(fingerprint.primary(), fingerprint.secondary())) {
+                    continue;
+                }
+
+                // 格式化和计算答案在工作线程中完成，合并线程只负责查重和写入
+                block.exercises[i] = expression.toString();
+                block.answers[i] = expression.evaluate().toString();
+                block.primaries[i] = fingerprint.primary();
+                block.secondaries[i] = fingerprint.secondary();
+            }
+            return block;
+        }
+    }
+}
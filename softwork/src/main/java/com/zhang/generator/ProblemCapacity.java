@@ -0,0 +1,223 @@
+package com.zhang.generator;
+
+import com.zhang.model.Fraction;
+import com.zhang.model.GcdTable;
+import com.zhang.model.Operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 估算给定数值范围下最多能生成多少道不同的题目
+ * ExpressionGenerator 生成的表达式都是 "左侧子表达式 运算符 数值" 的链，查重按 RPN 规范形式进行，
+ * 因此不同题目的个数等于满足校验规则的不同数值链的个数。
+ * 按运算符个数逐层统计每个中间结果对应的链数，最后一层只需按中间结果计数，不必展开。
+ * 范围较小（题目空间可能不够用）时精确计数；范围较大时计数代价太高，返回 UNKNOWN，
+ * 此时仅第一层的加法和乘法就有 2·n² 道题目（n 为不同数值的个数），见 lowerBound。
+ */
+public final class ProblemCapacity {
+    /**
+     * 题目空间太大，没有精确计数
+     */
+    public static final long UNKNOWN = -1;
+
+    // 超过这个数量的不同数值或中间结果时放弃精确计数
+    private static final int MAX_NUMBERS = 64;
+    private static final int MAX_TRACKED_VALUES = 1 << 18;
+    // 超过这个范围时下界只按自然数计算，统计分数个数的代价随范围超线性增长
+    private static final int EXACT_LOWER_BOUND_RANGE = 1 << 12;
+
+    private ProblemCapacity() {
+    }
+
+    /**
+     * 统计包含 1 到 maxOperators 个运算符的不同题目个数
+     * @return 题目个数，空间太大时返回 UNKNOWN
+     */
+    public static long count(int range, int maxOperators) {
+        // 仅自然数就有 range 个，先用它排除大范围，不必统计分数
+        if (range > MAX_NUMBERS || numberCount(range) > MAX_NUMBERS) {
+            return UNKNOWN;
+        }
+        Fraction[] numbers = numberValues(range);
+
+        // 第 0 层：单个数值，每个值对应一条链
+        Map<Fraction, Long> level = new HashMap<>();
+        for (Fraction number : numbers) {
+            level.put(number, 1L);
+        }
+
+        long total = 0;
+        for (int operators = 1; operators <= maxOperators; operators++) {
+            if (operators == maxOperators) {
+                // 最后一层只统计个数
+                for (Map.Entry<Fraction, Long> entry : level.entrySet()) {
+                    total = Math.addExact(total, Math.multiplyExact(entry.getValue(), validOperations(entry.getKey(), numbers)));
+                }
+                break;
+            }
+
+            Map<Fraction, Long> next = new HashMap<>();
+            for (Map.Entry<Fraction, Long> entry : level.entrySet()) {
+                Fraction left = entry.getKey();
+                long chains = entry.getValue();
+                for (Operator operator : Operator.values()) {
+                    for (Fraction right : numbers) {
+                        if (isValid(left, operator, right)) {
+                            next.merge(apply(left, operator, right), chains, Long::sum);
+                            total = Math.addExact(total, chains);
+                        }
+                    }
+                }
+                if (next.size() > MAX_TRACKED_VALUES) {
+                    return UNKNOWN;
+                }
+            }
+            level = next;
+        }
+        return total;
+    }
+
+    /**
+     * 题目个数的下界：一个运算符的加法和乘法总是有效
+     * 范围较大时只计自然数；超出 long 范围时返回 Long.MAX_VALUE
+     */
+    public static long lowerBound(int range) {
+        long numbers = range > EXACT_LOWER_BOUND_RANGE ? range : numberCount(range);
+        return numbers >= 1L << 31 ? Long.MAX_VALUE : 2 * numbers * numbers;
+    }
+
+    /**
+     * ExpressionGenerator.generateNumber 能生成的不同数值个数：
+     * range 个自然数、分母不超过 range 的真分数，以及 range 大于 2 时整数部分为 1 到 range-1 的带分数
+     * 超出 long 范围时返回 Long.MAX_VALUE
+     */
+    public static long numberCount(int range) {
+        long properFractions = 0;
+        for (int denominator = 2; denominator <= range; denominator++) {
+            properFractions += totient(denominator);
+        }
+        if (range > 2 && properFractions > (Long.MAX_VALUE - range - properFractions) / (range - 1)) {
+            return Long.MAX_VALUE;
+        }
+        long mixedNumbers = range > 2 ? properFractions * (range - 1) : 0;
+        return range + properFractions + mixedNumbers;
+    }
+
+    /**
+     * ExpressionGenerator.generateNumber 能生成的全部数值，从小到大排列
+     */
+    public static Fraction[] numberValues(int range) {
+        List<Fraction> properFractions = new ArrayList<>();
+        for (int denominator = 2; denominator <= range; denominator++) {
+            for (int numerator = 1; numerator < denominator; numerator++) {
+                if (GcdTable.gcd(numerator, denominator) == 1) {
+                    properFractions.add(Fraction.valueOf(numerator, denominator));
+                }
+            }
+        }
+
+        List<Fraction> values = new ArrayList<>();
+        for (int whole = 0; whole < range; whole++) {
+            values.add(Fraction.valueOf(whole));
+        }
+        values.addAll(properFractions);
+        if (range > 2) {
+            for (int whole = 1; whole < range; whole++) {
+                for (Fraction fraction : properFractions) {
+                    values.add(Fraction.valueOf(whole).add(fraction));
+                }
+            }
+        }
+        Fraction[] result = values.toArray(new Fraction[0]);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 左侧值为 left 时，有效的 (运算符, 数值) 组合个数
+     */
+    static long validOperations(Fraction left, Fraction[] numbers) {
+        // 加法、乘法总是有效；减法要求右侧不大于左侧
+        long count = 2L * numbers.length + countAtMost(numbers, left);
+        for (Fraction right : numbers) {
+            if (isValid(left, Operator.DIVIDE, right)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 有序数组中不大于 value 的元素个数
+     */
+    private static int countAtMost(Fraction[] sorted, Fraction value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].compareTo(value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 与 ExpressionGenerator 的校验规则相同（左侧已经有效）
+     */
+    static boolean isValid(Fraction left, Operator operator, Fraction right) {
+        switch (operator) {
+            case SUBTRACT:
+                return left.compareTo(right) >= 0;
+            case DIVIDE:
+                if (right.isZero()) {
+                    return false;
+                }
+                Fraction result = left.divide(right);
+                return result.isProperFraction() || result.isWholeNumber();
+            default:
+                return true;
+        }
+    }
+
+    static Fraction apply(Fraction left, Operator operator, Fraction right) {
+        switch (operator) {
+            case ADD:
+                return left.add(right);
+            case SUBTRACT:
+                return left.subtract(right);
+            case MULTIPLY:
+                return left.multiply(right);
+            case DIVIDE:
+                return left.divide(right);
+            default:
+                throw new IllegalStateException("未知运算符: " + operator);
+        }
+    }
+
+    /**
+     * 欧拉函数：1 到 n 中与 n 互素的整数个数
+     */
+    private static long totient(int n) {
+        long result = n;
+        int m = n;
+        for (int p = 2; (long) p * p <= m; p++) {
+            if (m % p == 0) {
+                while (m % p == 0) {
+                    m /= p;
+                }
+                result -= result / p;
+            }
+        }
+        if (m > 1) {
+            result -= result / m;
+        }
+        return result;
+    }
+}
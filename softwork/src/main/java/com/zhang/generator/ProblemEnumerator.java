@@ -0,0 +1,223 @@
+package com.zhang.generator;
+
+import com.zhang.model.Expression;
+import com.zhang.model.Fraction;
+import com.zhang.model.Operator;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.random.RandomGenerator;
+
+/**
+ * 按序号枚举全部不同的题目
+ * 题目空间与 ProblemCapacity 统计的相同：ExpressionGenerator 能生成的、包含 1 到 maxOperators 个运算符的有效数值链。
+ * 每道题目对应 [0, size()) 中的一个序号，get(rank) 按序号直接构造题目，不需要展开整个空间；
+ * sample() 按随机顺序不放回地抽取序号，每次抽取都得到一道新题目。
+ * 适用于题目空间较小（ProblemCapacity.count 能精确计数）的范围。
+ * 非线程安全。
+ */
+public class ProblemEnumerator {
+    private final Fraction[] numbers; // 所有可用的数值，从小到大排列
+    private final int maxOperators;
+    private final long size;
+    // completions.get(m).get(x)：左侧值为 x 时，再追加 1 到 m 个 "运算符 数值" 得到的有效链数
+    private final Map<Integer, Map<Fraction, Long>> completions = new HashMap<>();
+    private final long[] firstCounts; // 以每个数值开头的题目数
+
+    /**
+     * @throws IllegalArgumentException 题目空间太大，无法枚举时
+     */
+    public ProblemEnumerator(int range, int maxOperators) {
+        if (ProblemCapacity.count(range, maxOperators) == ProblemCapacity.UNKNOWN) {
+            throw new IllegalArgumentException("题目空间太大，无法枚举: 范围 " + range);
+        }
+        this.numbers = ProblemCapacity.numberValues(range);
+        this.maxOperators = maxOperators;
+        this.firstCounts = new long[numbers.length];
+        long total = 0;
+        for (int i = 0; i < numbers.length; i++) {
+            firstCounts[i] = completions(numbers[i], maxOperators);
+            total = Math.addExact(total, firstCounts[i]);
+        }
+        this.size = total;
+    }
+
+    /**
+     * 不同题目的总数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 第 rank 道题目
+     * 题目按首个数值、各步运算符、各步数值的顺序排列；前缀相同时较短的题目排在前面
+     */
+    public Expression get(long rank) {
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("题目序号超出范围: " + rank);
+        }
+
+        int first = 0;
+        while (rank >= firstCounts[first]) {
+            rank -= firstCounts[first];
+            first++;
+        }
+
+        Expression expression = new Expression(numbers[first]);
+        Fraction value = numbers[first];
+        for (int remaining = maxOperators; ; remaining--) {
+            // 依次跳过整块以 (运算符, 数值) 开头的后缀，找到序号所在的块
+            step:
+            for (Operator operator : Operator.values()) {
+                for (Fraction number : numbers) {
+                    if (!ProblemCapacity.isValid(value, operator, number)) {
+                        continue;
+                    }
+                    Fraction next = ProblemCapacity.apply(value, operator, number);
+                    long block = 1 + completions(next, remaining - 1);
+                    if (rank < block) {
+                        expression = new Expression(expression, operator, new Expression(number));
+                        value = next;
+                        break step;
+                    }
+                    rank -= block;
+                }
+            }
+            // 块中第一道题目就是到这一步为止的链
+            if (rank == 0) {
+                return expression;
+            }
+            rank--;
+        }
+    }
+
+    /**
+     * 按均匀随机顺序不放回地抽取题目，抽完全部题目后结束
+     * 使用稀疏的 Fisher-Yates 洗牌：只记录被交换过的位置，内存与已抽取的题目数成正比
+     */
+    public Iterator<Expression> sample(RandomGenerator random) {
+        return new Iterator<Expression>() {
+            private final LongMap swapped = new LongMap();
+            private long remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Expression next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                long index = random.nextLong(remaining);
+                long last = remaining - 1;
+                long rank = swapped.get(index, index);
+                // 把最后一个位置上的序号移到被抽走的位置
+                swapped.put(index, swapped.get(last, last));
+                remaining--;
+                return get(rank);
+            }
+        };
+    }
+
+    /**
+     * 左侧值为 value 时，再追加 1 到 operators 个 "运算符 数值" 得到的有效链数
+     */
+    private long completions(Fraction value, int operators) {
+        if (operators == 0) {
+            return 0;
+        }
+        Map<Fraction, Long> memo = completions.computeIfAbsent(operators, k -> new HashMap<>());
+        Long cached = memo.get(value);
+        if (cached != null) {
+            return cached;
+        }
+
+        long count;
+        if (operators == 1) {
+            count = ProblemCapacity.validOperations(value, numbers);
+        } else {
+            count = 0;
+            for (Operator operator : Operator.values()) {
+                for (Fraction number : numbers) {
+                    if (ProblemCapacity.isValid(value, operator, number)) {
+                        Fraction next = ProblemCapacity.apply(value, operator, number);
+                        count = Math.addExact(count, 1 + completions(next, operators - 1));
+                    }
+                }
+            }
+        }
+        memo.put(value, count);
+        return count;
+    }
+
+    /**
+     * 键为非负 long 的开放寻址散列表
+     */
+    static final class LongMap {
+        private static final long EMPTY = -1;
+        private long[] keys = newKeys(16);
+        private long[] values = new long[16];
+        private int size = 0;
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        long get(long key, long defaultValue) {
+            int slot = find(keys, key);
+            return keys[slot] == key ? values[slot] : defaultValue;
+        }
+
+        void put(long key, long value) {
+            int slot = find(keys, key);
+            if (keys[slot] != key) {
+                if (size >= keys.length * 3 / 4) {
+                    resize();
+                    slot = find(keys, key);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+        }
+
+        /**
+         * 键在容量为 capacity（不小于 2 的 2 的幂）的表中的起始槽位
+         * 取乘积的高 log2(capacity) 位（斐波那契散列），表再大也能用上全部槽位
+         */
+        static int home(long key, int capacity) {
+            return (int) (key * 0x9E3779B97F4A7C15L >>> (64 - Integer.numberOfTrailingZeros(capacity)));
+        }
+
+        private static int find(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = home(key, keys.length);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new long[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = find(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
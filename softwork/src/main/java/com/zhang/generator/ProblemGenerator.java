@@ -3,56 +3,148 @@ package com.zhang.generator;
 import com.zhang.model.Expression;
 import com.zhang.model.Fraction;
 import com.zhang.model.Problem;
-import com.zhang.utils.RPNEvaluator;
+import com.zhang.utils.Utf8FileWriter;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ProblemGenerator {
+    private static final int FLUSH_INTERVAL = 10000; // 每写出这么多道题目刷新一次
+    private static final int MAX_OPERATORS = 3; // 每道题目最多包含的运算符个数
+    private static final int ENUMERATION_SHARE = 4; // 请求的题目数达到题目空间的 1/4 时改为枚举抽样
+    private final int range; // 数值范围
     private final ExpressionGenerator expressionGenerator; // 表达式生成器
-    private final Set<String> problemSignatures = new HashSet<>(); // 用于存储已生成题目的签名，防止重复
+    private final long lowerBound; // 题目空间大小的下界，每生成一道题目都要比较，只计算一次
+    private long capacity = 0; // 最多能生成的不同题目个数，0 表示尚未计算
+    private FingerprintSet problemSignatures = new FingerprintSet(); // 已生成题目规范形式的指纹，防止重复
+    private Iterator<Expression> enumeration; // 枚举抽样的题目，null 表示随机生成
 
     public ProblemGenerator(int range) {
-        this.expressionGenerator = new ExpressionGenerator(range);
+        this(range, false);
+    }
+
+    /**
+     * @param constructive 是否使用构造式生成表达式，见 ExpressionGenerator
+     */
+    public ProblemGenerator(int range, boolean constructive) {
+        this.range = range;
+        this.expressionGenerator = new ExpressionGenerator(range, constructive);
+        this.lowerBound = ProblemCapacity.lowerBound(range);
     }
 
     /**
      * 生成指定数量的题目并写入文件
+     * 每道题目通过查重后立即写出，并定期刷新，内存中只保留查重用的指纹表
      * @param count 题目数量
      */
     public void generateProblems(int count) throws IOException {
-        List<Problem> problems = new ArrayList<>();
-
-        for (int i = 0; i < count; i++) {
-            Problem problem = generateUniqueProblem();
-            if (problem == null) {
-                System.err.println("Warning: Could only generate " + i + " unique problems.");
-                break;
-            }
-            problems.add(problem);
+        if (problemSignatures.size() == 0) {
+            // 按题目数量一次性分配指纹表，避免扩容时新旧两张表同时占用内存
+            problemSignatures = new FingerprintSet(count);
         }
 
-        // 将题目写入文件
-        try (PrintWriter exerciseWriter = new PrintWriter(new FileWriter("Exercises.txt"));
-             PrintWriter answerWriter = new PrintWriter(new FileWriter("Answers.txt"))) {
+        // 题目空间不够时提前告警，生成到上限后立即停止，不再反复尝试
+        long remaining = plan(count);
+        if (remaining < count) {
+            System.err.println("Warning: range " + range + " allows only " + remaining
+                    + " more unique problems, " + count + " requested.");
+        }
 
-            for (int i = 0; i < problems.size(); i++) {
-                Problem problem = problems.get(i);
-                exerciseWriter.println((i + 1) + ". " + problem.getExpression() + " = ");
-                answerWriter.println((i + 1) + ". " + problem.getAnswer());
+        int generated = 0;
+        try (Utf8FileWriter exerciseWriter = new Utf8FileWriter("Exercises.txt");
+             Utf8FileWriter answerWriter = new Utf8FileWriter("Answers.txt")) {
+
+            Iterator<Problem> problems = iterator();
+            while (generated < count) {
+                if (!problems.hasNext()) {
+                    System.err.println("Warning: Could only generate " + generated + " unique problems.");
+                    break;
+                }
+                Problem problem = problems.next();
+                generated++;
+                exerciseWriter.print(generated).print(". ").print(problem.getExpression()).println(" = ");
+                answerWriter.print(generated).print(". ").print(problem.getAnswer()).println();
+
+                // 定期刷新，程序中途退出时已生成的题目不会丢失
+                if (generated % FLUSH_INTERVAL == 0) {
+                    exerciseWriter.flush();
+                    answerWriter.flush();
+                }
             }
         }
 
-        System.out.println("Generated " + problems.size() + " problems.");
+        System.out.println("Generated " + generated + " problems.");
         System.out.println("Problems saved to Exercises.txt");
         System.out.println("Answers saved to Answers.txt");
     }
 
+    /**
+     * 清空查重记录，开始生成新的一组题目
+     * 保留表达式生成器和已计算的题目空间大小，同一个对象可在多次请求之间复用；之后用 iterator() 取题目
+     * @param count 这一组预计生成的题目数量，用于分配指纹表和决定是否改为枚举抽样
+     */
+    public void reset(int count) {
+        problemSignatures = new FingerprintSet(count);
+        enumeration = null;
+        plan(count);
+    }
+
+    /**
+     * 按即将生成的题目数量决定生成方式，返回还能生成的不同题目个数（不超过 count）
+     */
+    private long plan(int count) {
+        long remaining = remainingCapacity(count);
+        // 题目空间较小、请求又占其中相当一部分时，随机生成的重复率会越来越高，改为从全部题目中不放回地抽取
+        if (enumeration == null && capacity > 0 && (long) count * ENUMERATION_SHARE >= capacity) {
+            enumeration = new ProblemEnumerator(range, MAX_OPERATORS).sample(new SplittableRandom());
+        }
+        return remaining;
+    }
+
+    /**
+     * 按需逐个生成互不重复的题目，不写文件
+     * 无法再生成新题目时迭代结束；与本对象的其他生成方法共用查重记录
+     */
+    public Iterator<Problem> iterator() {
+        return new Iterator<Problem>() {
+            private Problem next;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !exhausted) {
+                    next = generateUniqueProblem();
+                    exhausted = next == null;
+                }
+                return next != null;
+            }
+
+            @Override
+            public Problem next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Problem problem = next;
+                next = null;
+                return problem;
+            }
+        };
+    }
+
+    /**
+     * 惰性的题目流，用法如 problems().limit(n)
+     */
+    public Stream<Problem> problems() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
     /**
      * 生成一个唯一的题目（不与之前生成的重复）
      */
@@ -60,24 +152,36 @@ public class ProblemGenerator {
         // 生成唯一题目的最大尝试次数
         final int MAX_ATTEMPTS = 10000;
 
+        // 已生成的题目达到题目空间的上限时直接结束
+        if (remainingCapacity(1) == 0) {
+            return null;
+        }
+
+        if (enumeration != null) {
+            // 每次抽取都是新题目，只需跳过改为枚举之前已经随机生成过的
+            while (enumeration.hasNext()) {
+                Expression expression = enumeration.next();
+                if (problemSignatures.add(expression)) {
+                    return new Problem(expression, expression.evaluate());
+                }
+            }
+            return null;
+        }
+
         for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
             // 生成一个最多包含3个运算符的表达式
-            Expression expression = expressionGenerator.generateExpression(3);
+            Expression expression = expressionGenerator.generateExpression(MAX_OPERATORS);
 
             //检查表达式是否有效，至少包含一个运算符
             if(!isValidExpression(expression)){
                 continue;
             }
 
-            // 获取表达式的规范形式
-            String signature = getCanonicalForm(expression);
-
-            // 检查题目是否重复
-            if (!problemSignatures.contains(signature)) {
-                problemSignatures.add(signature);
+            // 按规范形式（RPN）的指纹检查题目是否重复
+            if (problemSignatures.add(expression)) {
 
-                // 使用RPN计算答案
-                Fraction answer = RPNEvaluator.evaluateRPN(RPNEvaluator.toRPN(expression));
+                // 生成时已自底向上求值并缓存在节点上，直接取根节点的值作为答案
+                Fraction answer = expression.evaluate();
                 return new Problem(expression, answer);
             }
         }
@@ -86,16 +190,26 @@ public class ProblemGenerator {
         return null;
     }
 
+    /**
+     * 还能生成的不同题目个数，不少于 wanted 时返回 wanted
+     * 只有可能不够用时才计算题目空间的大小，计算结果会被缓存
+     */
+    private long remainingCapacity(long wanted) {
+        long generated = problemSignatures.size();
+        if (generated + wanted <= lowerBound) {
+            return wanted;
+        }
+        if (capacity == 0) {
+            capacity = ProblemCapacity.count(range, MAX_OPERATORS);
+        }
+        if (capacity == ProblemCapacity.UNKNOWN) {
+            return wanted;
+        }
+        return Math.min(wanted, Math.max(capacity - generated, 0));
+    }
+
     private boolean isValidExpression(Expression expression) {
         String expr =expression.toString();
         return  expr.contains("+")||expr.contains("-")||expr.contains("×")||expr.contains("÷");
     }
-
-    /**
-     * 获取表达式的规范形式，用于检测重复题目
-     * 使用RPN表示并考虑操作符的可交换性
-     */
-    private String getCanonicalForm(Expression expression) {
-        return RPNEvaluator.getCanonicalRPN(expression);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,244 @@
+package com.zhang.grader;
+
+import com.zhang.model.Fraction;
+import com.zhang.utils.PackedNumbers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * 题目文件的标准答案缓存，保存在旁边的 "文件名.key" 中
+ * 第一次评分时按行记录每道题目的题号和标准答案（无法计算时记录错误信息），
+ * 文件头保存题目文件内容的 SHA-256；之后评分时先校验哈希，一致时一次读入整个答案表，
+ * 评分只需解析和比较用户答案，不再解析和计算题目。
+ * 文件结构：int 魔数 "ZAK1"，int 版本，32 字节哈希，long 题目数，随后依次为每道题目的
+ * 变长题号、标志字节和答案（分数按 PackedNumbers 编码，错误信息为变长长度加 UTF-8 字节）。
+ * 读取时按顺序遍历，非线程安全。
+ */
+public final class AnswerKey {
+    private static final int MAGIC = 0x5A414B31; // "ZAK1"
+    private static final int VERSION = 1;
+    private static final int HASH_SIZE = 32;
+    private static final int HEADER_SIZE = 8 + HASH_SIZE + 8;
+    private static final int BUFFER_SIZE = 1 << 20; // 1MB
+
+    // 每道题目的标志
+    private static final byte SMALL = 0; // 答案在 long 范围内
+    private static final byte BIG = 1; // 答案按 BigInteger 存放
+    private static final byte ERROR = 2; // 题目无法计算，保存错误信息
+
+    private final ByteBuffer entries;
+    private final long size;
+    private long remaining;
+    private int problemNumber;
+    private Fraction answer;
+    private String error;
+
+    private AnswerKey(ByteBuffer entries, long size) {
+        this.entries = entries;
+        this.size = size;
+        this.remaining = size;
+    }
+
+    /**
+     * 读取题目文件的答案缓存
+     * @return 缓存不存在、已损坏或与题目文件的内容不一致时返回 null
+     */
+    public static AnswerKey load(String exerciseFile) throws IOException {
+        Path keyPath = keyPath(Paths.get(exerciseFile));
+        if (!Files.isRegularFile(keyPath) || Files.size(keyPath) < HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(keyPath));
+        if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+            return null;
+        }
+        byte[] hash = new byte[HASH_SIZE];
+        data.get(hash);
+        long size = data.getLong();
+        if (size < 0 || !Arrays.equals(hash, contentHash(Paths.get(exerciseFile)))) {
+            return null;
+        }
+        return new AnswerKey(data.slice(), size);
+    }
+
+    static Path keyPath(Path exerciseFile) {
+        return exerciseFile.resolveSibling(exerciseFile.getFileName() + ".key");
+    }
+
+    /**
+     * 文件内容的 SHA-256
+     */
+    static byte[] contentHash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e); // 每个 Java 平台都必须支持 SHA-256
+        }
+    }
+
+    /**
+     * 题目数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 移到下一道题目
+     * @return 已经没有题目时返回 false
+     */
+    public boolean next() {
+        if (remaining == 0) {
+            return false;
+        }
+        remaining--;
+        problemNumber = (int) PackedNumbers.getVarint(entries);
+        byte flag = entries.get();
+        if (flag == ERROR) {
+            byte[] message = new byte[(int) PackedNumbers.getVarint(entries)];
+            entries.get(message);
+            answer = null;
+            error = new String(message, StandardCharsets.UTF_8);
+        } else {
+            answer = PackedNumbers.getFraction(entries, flag == BIG);
+            error = null;
+        }
+        return true;
+    }
+
+    public int problemNumber() {
+        return problemNumber;
+    }
+
+    /**
+     * 当前题目的标准答案，题目无法计算时为 null
+     */
+    public Fraction answer() {
+        return answer;
+    }
+
+    /**
+     * 当前题目无法计算时的错误信息，否则为 null
+     */
+    public String error() {
+        return error;
+    }
+
+    /**
+     * 逐题写出答案缓存
+     * 先写临时文件，commit 时写入文件头和哈希后替换原有缓存；没有 commit 就关闭时丢弃临时文件。
+     * 临时文件名每次不同，同一个题目文件同时评分的多个进程互不干扰，最后提交的缓存生效。
+     * 非线程安全。
+     */
+    public static final class Builder implements Closeable {
+        private final Path keyPath;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long size = 0;
+        private boolean committed = false;
+
+        public Builder(String exerciseFile) throws IOException {
+            this.keyPath = keyPath(Paths.get(exerciseFile).toAbsolutePath());
+            this.temporary = Files.createTempFile(keyPath.getParent(), keyPath.getFileName() + ".", ".tmp");
+            try {
+                this.channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+            buffer.position(HEADER_SIZE);
+        }
+
+        /**
+         * 记录一道题目的标准答案
+         */
+        public void add(int problemNumber, Fraction answer) throws IOException {
+            boolean big = !answer.fitsInLong();
+            ensure(PackedNumbers.MAX_VARINT_SIZE + 1 + PackedNumbers.maxSize(answer, big));
+            PackedNumbers.putVarint(buffer, problemNumber & 0xFFFFFFFFL);
+            buffer.put(big ? BIG : SMALL);
+            PackedNumbers.putFraction(buffer, answer, big);
+            size++;
+        }
+
+        /**
+         * 记录一道无法计算的题目
+         */
+        public void addError(int problemNumber, String message) throws IOException {
+            byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+            ensure(2 * PackedNumbers.MAX_VARINT_SIZE + 1 + bytes.length);
+            PackedNumbers.putVarint(buffer, problemNumber & 0xFFFFFFFFL);
+            buffer.put(ERROR);
+            PackedNumbers.putVarint(buffer, bytes.length);
+            buffer.put(bytes);
+            size++;
+        }
+
+        /**
+         * 写入文件头并替换原有缓存
+         * @param hash 题目文件内容的 SHA-256
+         */
+        public void commit(byte[] hash) throws IOException {
+            drain();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).put(hash).putLong(size).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.close();
+            Files.move(temporary, keyPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+                if (buffer.capacity() < bytes) {
+                    throw new IllegalArgumentException("答案太大: " + bytes + " 字节");
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+}
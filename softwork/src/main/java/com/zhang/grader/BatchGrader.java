@@ -0,0 +1,225 @@
+package com.zhang.grader;
+
+import com.zhang.utils.Utf8FileWriter;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 批量评分：多份答案对照同一个题目文件
+ * 题目文件只解析和计算一次（见 ExpectedAnswers），各份答案在线程池中并发评分，
+ * 每份答案在报告目录中生成一份与 Grade.txt 格式相同的 "答案文件名.Grade.txt"，
+ * 最后生成汇总报告 Summary.txt：每份答案的得分、全班平均分和错误人数最多的题目。
+ */
+public class BatchGrader {
+    /**
+     * 汇总报告的文件名
+     */
+    public static final String SUMMARY_FILE = "Summary.txt";
+    private static final int MOST_MISSED = 10; // 汇总报告中列出的错误最多的题目数
+
+    private final int threads;
+    private final Grader grader;
+
+    public BatchGrader(int threads) {
+        this(threads, new Grader());
+    }
+
+    /**
+     * @param grader 评判单道题目时使用的 Grader，其答案缓存和表达式缓存设置同样生效
+     */
+    public BatchGrader(int threads, Grader grader) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        this.threads = threads;
+        this.grader = grader;
+    }
+
+    /**
+     * 找出要评分的答案文件
+     * @param spec 目录（取其中全部 .txt 文件），或文件名部分带通配符的路径，如 answers/*.txt
+     * @return 按文件名排序的答案文件
+     */
+    public static List<Path> findAnswerFiles(String spec) throws IOException {
+        Path path = Paths.get(spec);
+        Path directory;
+        String glob;
+        if (Files.isDirectory(path)) {
+            directory = path;
+            glob = "*.txt";
+        } else {
+            directory = path.getParent() != null ? path.getParent() : Paths.get(".");
+            glob = path.getFileName().toString();
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, glob)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry)) {
+                    files.add(entry);
+                }
+            }
+        }
+        files.sort(Comparator.comparing(Path::toString));
+        return files;
+    }
+
+    /**
+     * 评判全部答案文件，报告写入 reportDirectory
+     * 某份答案无法读取时在汇总报告中注明，不影响其他答案
+     */
+    public void grade(String exerciseFile, List<Path> answerFiles, Path reportDirectory) throws IOException {
+        ExpectedAnswers expected = ExpectedAnswers.load(exerciseFile, grader);
+        Files.createDirectories(reportDirectory);
+        AtomicIntegerArray missed = new AtomicIntegerArray(expected.size()); // 每道题目答错的人数
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<>();
+        try {
+            for (Path answerFile : answerFiles) {
+                futures.add(pool.submit(() -> gradeSubmission(expected, answerFile, reportDirectory, missed)));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(get(futures.get(i), answerFiles.get(i)));
+            }
+            writeSummary(reportDirectory.resolve(SUMMARY_FILE), expected, results, missed);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        System.out.println("评分完成，共 " + answerFiles.size() + " 份答案，结果已保存到 " + reportDirectory);
+    }
+
+    private static Result get(Future<Result> future, Path answerFile) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("评分被中断", e);
+        } catch (ExecutionException e) {
+            // 单份答案出错只记录在汇总报告中
+            return new Result(answerFile, 0, 0, String.valueOf(e.getCause().getMessage()));
+        }
+    }
+
+    /**
+     * 评判一份答案并写出它的报告
+     */
+    private Result gradeSubmission(ExpectedAnswers expected, Path answerFile, Path reportDirectory,
+                                   AtomicIntegerArray missed) throws IOException {
+        ProblemNumberRuns correctProblems = new ProblemNumberRuns();
+        ProblemNumberRuns wrongProblems = new ProblemNumberRuns();
+        try (BufferedReader userAnswers = new BufferedReader(new FileReader(answerFile.toFile(), StandardCharsets.UTF_8))) {
+            String userAnswer;
+            // 题目数量和答案数量不一致时，只评到较短的文件结束为止
+            for (int i = 0; i < expected.size() && (userAnswer = userAnswers.readLine()) != null; i++) {
+                int problemNumber = expected.problemNumber(i);
+                long wrongBefore = wrongProblems.size();
+                if (expected.error(i) != null) {
+                    wrongProblems.add(problemNumber);
+                } else {
+                    grader.gradeAnswer(problemNumber, expected.answer(i), userAnswer, correctProblems, wrongProblems);
+                }
+                if (wrongProblems.size() > wrongBefore) {
+                    missed.incrementAndGet(i);
+                }
+            }
+        }
+        grader.writeReport(reportDirectory.resolve(reportName(answerFile)).toString(), correctProblems, wrongProblems);
+        return new Result(answerFile, correctProblems.size(), wrongProblems.size(), null);
+    }
+
+    /**
+     * 答案文件对应的报告文件名：去掉 .txt 后加上 .Grade.txt
+     */
+    static String reportName(Path answerFile) {
+        String name = answerFile.getFileName().toString();
+        if (name.endsWith(".txt")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return name + ".Grade.txt";
+    }
+
+    private static void writeSummary(Path summaryFile, ExpectedAnswers expected, List<Result> results,
+                                     AtomicIntegerArray missed) throws IOException {
+        try (Utf8FileWriter writer = new Utf8FileWriter(summaryFile.toString())) {
+            writer.print("题目数: ").print(expected.size()).println();
+            writer.print("答案数: ").print(results.size()).println();
+
+            long totalCorrect = 0;
+            int graded = 0;
+            for (Result result : results) {
+                writer.print(result.answerFile.getFileName().toString()).print(": ");
+                if (result.error != null) {
+                    writer.print("出错 ").println(result.error);
+                    continue;
+                }
+                writer.print("正确 ").print(result.correct).print(", 错误 ").print(result.wrong)
+                        .print(", 得分 ").print(percent(result.correct, expected.size())).println();
+                totalCorrect += result.correct;
+                graded++;
+            }
+            if (graded > 0) {
+                writer.print("平均得分: ").println(percent(totalCorrect, (long) expected.size() * graded));
+            }
+
+            // 按答错人数从多到少列出，人数相同时按题目顺序
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = 0; i < missed.length(); i++) {
+                if (missed.get(i) > 0) {
+                    indexes.add(i);
+                }
+            }
+            indexes.sort(Comparator.comparingInt((Integer i) -> -missed.get(i)).thenComparingInt(i -> i));
+            writer.print("错误最多的题目:");
+            for (int i = 0; i < Math.min(MOST_MISSED, indexes.size()); i++) {
+                int index = indexes.get(i);
+                writer.print(i == 0 ? " " : ", ").print(expected.problemNumber(index))
+                        .print(" (").print(missed.get(index)).print(" 人)");
+            }
+            writer.println();
+        }
+    }
+
+    /**
+     * 百分比，保留一位小数
+     */
+    private static String percent(long part, long total) {
+        if (total == 0) {
+            return "0.0%";
+        }
+        long tenths = (part * 1000 + total / 2) / total;
+        return tenths / 10 + "." + tenths % 10 + "%";
+    }
+
+    private static final class Result {
+        final Path answerFile;
+        final long correct;
+        final long wrong;
+        final String error; // 无法评分时的错误信息
+
+        Result(Path answerFile, long correct, long wrong, String error) {
+            this.answerFile = answerFile;
+            this.correct = correct;
+            this.wrong = wrong;
+            this.error = error;
+        }
+    }
+}
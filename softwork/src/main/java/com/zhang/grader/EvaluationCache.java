@@ -0,0 +1,102 @@
+package com.zhang.grader;
+
+import com.zhang.model.Fraction;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 表达式文本到计算结果的有界缓存
+ * 合并的练习卷和重复的练习中常有完全相同的表达式，命中时不必再次解析和计算。
+ * 组相联结构：按哈希选定一组 WAYS 个槽位，组内按最近使用排序，命中时移到最前，插入时淘汰最后一个，
+ * 即每组内的 LRU。表是固定大小的数组，没有链表节点和锁，未命中时只创建一个不可变的表项。
+ * 多个线程同时读写时可能丢失一次插入或调整顺序，但表项的键和值总是成对可见（final 字段），
+ * 不会返回错误的结果。计算出错的表达式不缓存，每次都重新计算并抛出相同的异常，
+ * 因此使用缓存不会改变评分结果。
+ * 线程安全。
+ */
+public final class EvaluationCache {
+    private static final int WAYS = 4; // 每组的槽位数
+
+    private final Entry[] table;
+    private final int setMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity 最多缓存的表达式个数，向上取整为 WAYS 乘以 2 的幂
+     */
+    public EvaluationCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        int sets = 1;
+        while ((long) sets * WAYS < capacity && sets < (1 << 26)) {
+            sets <<= 1;
+        }
+        this.table = new Entry[sets * WAYS];
+        this.setMask = sets - 1;
+    }
+
+    /**
+     * 返回缓存的结果，没有时用 evaluator 计算并加入缓存
+     */
+    public Fraction get(String expression, Function<String, Fraction> evaluator) {
+        int hash = spread(expression.hashCode());
+        int base = (hash & setMask) * WAYS;
+        Entry[] table = this.table;
+        for (int i = 0; i < WAYS; i++) {
+            Entry entry = table[base + i];
+            if (entry == null) {
+                break;
+            }
+            if (entry.hash == hash && entry.expression.equals(expression)) {
+                // 移到组的最前面
+                System.arraycopy(table, base, table, base + 1, i);
+                table[base] = entry;
+                hits.increment();
+                return entry.value;
+            }
+        }
+
+        misses.increment();
+        Fraction value = evaluator.apply(expression);
+        System.arraycopy(table, base, table, base + 1, WAYS - 1); // 淘汰组内最久未使用的表项
+        table[base] = new Entry(hash, expression, value);
+        return value;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 最多缓存的表达式个数
+     */
+    public int capacity() {
+        return table.length;
+    }
+
+    /**
+     * String.hashCode 的低位在相似的短字符串之间差别不大，先混合高位
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16) ^ (hash >>> 8);
+    }
+
+    private static final class Entry {
+        final int hash;
+        final String expression;
+        final Fraction value;
+
+        Entry(int hash, String expression, Fraction value) {
+            this.hash = hash;
+            this.expression = expression;
+            this.value = value;
+        }
+    }
+}
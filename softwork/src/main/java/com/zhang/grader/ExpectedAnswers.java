@@ -0,0 +1,102 @@
+package com.zhang.grader;
+
+import com.zhang.model.Fraction;
+import com.zhang.utils.LineDecoder;
+import com.zhang.utils.ProblemSetFile;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 一个题目文件全部题目的标准答案，按行保存在内存中
+ * 批量评分时只解析和计算一次题目文件，再与每份答案逐行比较。
+ * 有有效的答案缓存（见 AnswerKey）时直接读取缓存；题目文件也可以是二进制题目集。
+ * 创建后不再修改，可在线程间共享。
+ */
+final class ExpectedAnswers {
+    private int size = 0;
+    private int[] problemNumbers = new int[1024];
+    private Fraction[] answers = new Fraction[1024]; // 题目无法计算时为 null
+    private String[] errors = new String[1024]; // 题目无法计算时的错误信息
+
+    private ExpectedAnswers() {
+    }
+
+    static ExpectedAnswers load(String exerciseFile, Grader grader) throws IOException {
+        ExpectedAnswers expected = new ExpectedAnswers();
+        if (ProblemSetFile.isProblemSet(exerciseFile)) {
+            try (ProblemSetFile.Reader exercises = ProblemSetFile.open(exerciseFile)) {
+                for (long i = 0; i < exercises.size(); i++) {
+                    ProblemSetFile.Entry exercise = exercises.get(i);
+                    try {
+                        expected.add(exercise.getProblemNumber(), exercise.getProgram().evaluate(), null);
+                    } catch (Exception e) {
+                        expected.add(exercise.getProblemNumber(), null, String.valueOf(e.getMessage()));
+                    }
+                }
+            }
+            return expected;
+        }
+
+        AnswerKey key = grader.usesAnswerKey() ? AnswerKey.load(exerciseFile) : null;
+        if (key != null) {
+            while (key.next()) {
+                expected.add(key.problemNumber(), key.answer(), key.error());
+            }
+            return expected;
+        }
+
+        try (BufferedReader exercises = new BufferedReader(new FileReader(exerciseFile, StandardCharsets.UTF_8))) {
+            String exercise;
+            while ((exercise = exercises.readLine()) != null) {
+                int problemNumber = LineDecoder.problemNumber(exercise);
+                try {
+                    expected.add(problemNumber, grader.calculateAnswer(exercise), null);
+                } catch (Exception e) {
+                    expected.add(problemNumber, null, String.valueOf(e.getMessage()));
+                }
+            }
+        }
+        return expected;
+    }
+
+    private void add(int problemNumber, Fraction answer, String error) {
+        if (size == problemNumbers.length) {
+            problemNumbers = Arrays.copyOf(problemNumbers, size * 2);
+            answers = Arrays.copyOf(answers, size * 2);
+            errors = Arrays.copyOf(errors, size * 2);
+        }
+        problemNumbers[size] = problemNumber;
+        answers[size] = answer;
+        errors[size] = error;
+        size++;
+    }
+
+    /**
+     * 题目数
+     */
+    int size() {
+        return size;
+    }
+
+    int problemNumber(int index) {
+        return problemNumbers[index];
+    }
+
+    /**
+     * 第 index 道题目的标准答案，题目无法计算时为 null
+     */
+    Fraction answer(int index) {
+        return answers[index];
+    }
+
+    /**
+     * 第 index 道题目无法计算时的错误信息，否则为 null
+     */
+    String error(int index) {
+        return errors[index];
+    }
+}
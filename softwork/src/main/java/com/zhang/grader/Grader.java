@@ -1,139 +1,435 @@
 package com.zhang.grader;
 
-import com.zhang.model.Expression;
+import com.zhang.model.ExpressionProgram;
 import com.zhang.model.Fraction;
-import com.zhang.utils.ExpressionParser;
-import com.zhang.utils.RPNEvaluator;
+import com.zhang.utils.ExpressionEvaluator;
+import com.zhang.utils.LineDecoder;
+import com.zhang.utils.ProblemSetFile;
+import com.zhang.utils.Utf8FileWriter;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.PrimitiveIterator;
 
 public class Grader {
+    /**
+     * 默认缓存的表达式个数
+     * 缓存较小时，题目互不相同的文件几乎没有额外开销；过大的缓存会在每次垃圾回收时被整体复制
+     */
+    public static final int DEFAULT_EVALUATION_CACHE_SIZE = 1 << 12;
+
+    private final boolean useAnswerKey; // 是否使用题目文件的答案缓存（见 AnswerKey）
+    private final EvaluationCache evaluationCache; // 表达式计算结果的缓存，null 表示不缓存
+
+    public Grader() {
+        this(true);
+    }
+
+    /**
+     * @param useAnswerKey 为 true 时文本题目文件的标准答案缓存在旁边的 .key 文件中，题目文件不变时直接读取
+     */
+    public Grader(boolean useAnswerKey) {
+        this(useAnswerKey, DEFAULT_EVALUATION_CACHE_SIZE);
+    }
+
+    /**
+     * @param evaluationCacheSize 缓存的表达式个数，为 0 时不缓存
+     */
+    public Grader(boolean useAnswerKey, int evaluationCacheSize) {
+        if (evaluationCacheSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative");
+        }
+        this.useAnswerKey = useAnswerKey;
+        this.evaluationCache = evaluationCacheSize > 0 ? new EvaluationCache(evaluationCacheSize) : null;
+    }
+
+    public boolean usesAnswerKey() {
+        return useAnswerKey;
+    }
+
+    /**
+     * 表达式计算结果的缓存，可读取命中和未命中次数；不缓存时返回 null
+     */
+    public EvaluationCache getEvaluationCache() {
+        return evaluationCache;
+    }
 
     /**
      * 评估用户答案并生成评分报告
+     * 两个文件同步逐行读取，每读到一对题目和答案就立即评分，不保留已读的行；
+     * 题号以游程编码或位图保存（见 ProblemNumberRuns），答对和答错两个列表合计每道题目最多约占 4 位
+     * 文件按 UTF-8 读取，与生成题目时的编码一致
+     * 题目文件也可以是二进制题目集（见 ProblemSetFile），此时直接执行编译好的表达式，不解析文本；
+     * 答案文件可以是文本，也可以是二进制题目集（取其中的答案）
+     * 启用答案缓存时，第一次评分顺便记录全部标准答案，之后题目文件内容不变时只需解析和比较用户答案
      * @param exerciseFile 练习题文件的路径
      * @param answerFile 答案文件的路径
      */
     public void grade(String exerciseFile, String answerFile) throws IOException {
-        List<String> exercises = readLines(exerciseFile);
-        List<String> userAnswers = readLines(answerFile);
+        ProblemNumberRuns correctProblems = new ProblemNumberRuns(); // 记录答对的题号
+        ProblemNumberRuns wrongProblems = new ProblemNumberRuns(); // 记录答错的题号
 
-        List<Integer> correctProblems = new ArrayList<>(); // 记录答对的题号
-        List<Integer> wrongProblems = new ArrayList<>(); // 记录答错的题号
-
-        // 检查题目数量和答案数量是否匹配
-        int minSize = Math.min(exercises.size(), userAnswers.size());
+        if (ProblemSetFile.isProblemSet(exerciseFile)) {
+            gradeProblemSet(exerciseFile, answerFile, correctProblems, wrongProblems);
+        } else if (ProblemSetFile.isProblemSet(answerFile)) {
+            throw new IllegalArgumentException("答案文件为二进制题目集时，题目文件也必须是二进制题目集");
+        } else {
+            gradeText(exerciseFile, answerFile, correctProblems, wrongProblems);
+        }
 
-        for (int i = 0; i < minSize; i++) {
-            String exercise = exercises.get(i);
-            String userAnswer = userAnswers.get(i);
+        // 将评分结果写入 Grade.txt 文件
+        writeReport("Grade.txt", correctProblems, wrongProblems);
 
-            // 提取题号和标准答案
-            int problemNumber = extractProblemNumber(exercise);
+        System.out.println("评分完成，结果已保存到 Grade.txt");
+    }
 
-            try {
-                Fraction expectedAnswer = calculateAnswer(exercise);
-                Fraction providedAnswer = parseAnswer(userAnswer);
+    /**
+     * 只评判指定题号的题目，报告格式与 grade 相同
+     * 通过行索引（见 LineIndex）直接读取这些题目和答案所在的行，不读取文件的其余部分；
+     * 题目文件为二进制题目集时按下标直接定位。题目或答案中不存在的题号不计入报告
+     * @param problems 要评判的题号
+     */
+    public void gradeSelected(String exerciseFile, String answerFile, ProblemNumberRuns problems) throws IOException {
+        ProblemNumberRuns correctProblems = new ProblemNumberRuns(); // 记录答对的题号
+        ProblemNumberRuns wrongProblems = new ProblemNumberRuns(); // 记录答错的题号
 
-                // 检查用户答案是否正确
-                if (expectedAnswer != null && providedAnswer != null &&
-                        expectedAnswer.equals(providedAnswer)) {
-                    correctProblems.add(problemNumber);
+        boolean binary = ProblemSetFile.isProblemSet(exerciseFile);
+        if (!binary && ProblemSetFile.isProblemSet(answerFile)) {
+            throw new IllegalArgumentException("答案文件为二进制题目集时，题目文件也必须是二进制题目集");
+        }
+        try (ProblemSetFile.Reader problemSet = binary ? ProblemSetFile.open(exerciseFile) : null;
+             LineIndex exercises = binary ? null : LineIndex.open(exerciseFile);
+             ProblemSetFile.Reader answerSet = ProblemSetFile.isProblemSet(answerFile) ? ProblemSetFile.open(answerFile) : null;
+             LineIndex userAnswers = answerSet == null ? LineIndex.open(answerFile) : null) {
+            PrimitiveIterator.OfInt numbers = problems.iterator();
+            while (numbers.hasNext()) {
+                int number = numbers.nextInt();
+                if (binary) {
+                    // 二进制题目集中第 N 题通常是第 N 条记录
+                    ProblemSetFile.Entry exercise = number <= problemSet.size() ? problemSet.get(number - 1) : null;
+                    if (exercise == null || exercise.getProblemNumber() != number) {
+                        System.err.println("题目 " + number + " 不存在");
+                        continue;
+                    }
+                    Fraction providedAnswer;
+                    if (answerSet != null) {
+                        providedAnswer = number <= answerSet.size() ? answerSet.get(number - 1).getAnswer() : null;
+                    } else {
+                        String userAnswer = userAnswers.problem(number);
+                        providedAnswer = userAnswer != null ? parseAnswerQuietly(number, userAnswer) : null;
+                    }
+                    gradeProblem(number, exercise.getProgram(), providedAnswer, correctProblems, wrongProblems);
                 } else {
-                    wrongProblems.add(problemNumber);
+                    String exercise = exercises.problem(number);
+                    String userAnswer = userAnswers.problem(number);
+                    if (exercise == null || userAnswer == null) {
+                        System.err.println("题目 " + number + " 不存在");
+                        continue;
+                    }
+                    gradeProblem(exercise, userAnswer, correctProblems, wrongProblems);
                 }
-            } catch (Exception e) {
-                wrongProblems.add(problemNumber);
-                System.err.println("处理题目 " + problemNumber + " 时出错: " + e.getMessage());
             }
         }
 
-        // 将评分结果写入 Grade.txt 文件
-        try (PrintWriter writer = new PrintWriter(new FileWriter("Grade.txt"))) {
-            writer.println("正确: " + correctProblems.size() + " " + formatNumberList(correctProblems));
-            writer.println("错误: " + wrongProblems.size() + " " + formatNumberList(wrongProblems));
-        }
+        writeReport("Grade.txt", correctProblems, wrongProblems);
 
         System.out.println("评分完成，结果已保存到 Grade.txt");
     }
 
     /**
-     * 读取文件中的所有行
+     * 解析答案，无法解析时返回 null 并输出错误信息
      */
-    private List<String> readLines(String filename) throws IOException {
-        List<String> lines = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lines.add(line);
-            }
+    private Fraction parseAnswerQuietly(int problemNumber, String userAnswer) {
+        try {
+            return parseAnswer(userAnswer);
+        } catch (Exception e) {
+            System.err.println("处理题目 " + problemNumber + " 时出错: " + e.getMessage());
+            return null;
         }
-        return lines;
     }
 
     /**
-     * 从题目行中提取题号
+     * 逐行评判文本形式的题目和答案
      */
-    private int extractProblemNumber(String line) {
-        Pattern pattern = Pattern.compile("^(\\d+)\\.");
-        Matcher matcher = pattern.matcher(line);
-        if (matcher.find()) {
-            return Integer.parseInt(matcher.group(1));
+    private void gradeText(String exerciseFile, String answerFile, ProblemNumberRuns correctProblems,
+                           ProblemNumberRuns wrongProblems) throws IOException {
+        if (useAnswerKey) {
+            AnswerKey key = AnswerKey.load(exerciseFile);
+            if (key != null) {
+                gradeWithKey(key, answerFile, correctProblems, wrongProblems);
+                return;
+            }
+            AnswerKey.Builder builder = openKeyBuilder(exerciseFile);
+            if (builder != null) {
+                gradeAndBuildKey(exerciseFile, answerFile, builder, correctProblems, wrongProblems);
+                return;
+            }
+        }
+
+        try (BufferedReader exercises = new BufferedReader(new FileReader(exerciseFile, StandardCharsets.UTF_8));
+             BufferedReader userAnswers = new BufferedReader(new FileReader(answerFile, StandardCharsets.UTF_8))) {
+            grade(exercises, userAnswers, correctProblems, wrongProblems);
         }
-        return 0;
     }
 
     /**
-     * 计算题目的标准答案
+     * 逐行评判文本形式的题目和答案，题号记入答对或答错的列表
+     * 不读写文件，也不使用答案缓存；可在多个线程中同时调用
      */
-    private Fraction calculateAnswer(String exercise) {
-        // 提取题目中的表达式
-        String expressionStr = exercise.replaceAll("^\\d+\\.\\s+", "").trim();
-        expressionStr = expressionStr.replaceAll("\\s*=\\s*$", "").trim();
+    public void grade(BufferedReader exercises, BufferedReader userAnswers, ProblemNumberRuns correctProblems,
+                      ProblemNumberRuns wrongProblems) throws IOException {
+        String exercise;
+        String userAnswer;
+        // 题目数量和答案数量不一致时，只评到较短的文件结束为止
+        while ((exercise = exercises.readLine()) != null && (userAnswer = userAnswers.readLine()) != null) {
+            gradeProblem(exercise, userAnswer, correctProblems, wrongProblems);
+        }
+    }
 
-        // 解析表达式字符串为 Expression 对象
-        Expression expr = ExpressionParser.parse(expressionStr);
+    /**
+     * 按缓存的标准答案评判，不读取题目文件的内容（校验哈希除外）
+     */
+    private void gradeWithKey(AnswerKey key, String answerFile, ProblemNumberRuns correctProblems,
+                              ProblemNumberRuns wrongProblems) throws IOException {
+        try (BufferedReader userAnswers = new BufferedReader(new FileReader(answerFile, StandardCharsets.UTF_8))) {
+            String userAnswer;
+            while (key.next() && (userAnswer = userAnswers.readLine()) != null) {
+                if (key.error() != null) {
+                    wrongProblems.add(key.problemNumber());
+                    System.err.println("处理题目 " + key.problemNumber() + " 时出错: " + key.error());
+                } else {
+                    gradeAnswer(key.problemNumber(), key.answer(), userAnswer, correctProblems, wrongProblems);
+                }
+            }
+        }
+    }
 
-        // 转换为逆波兰表达式（RPN）并计算结果
-        List<Object> rpnTokens = RPNEvaluator.toRPN(expr);
-        return RPNEvaluator.evaluateRPN(rpnTokens);
+    /**
+     * 开始写答案缓存；题目文件所在目录不可写等原因无法写缓存时返回 null，评分照常进行
+     */
+    private static AnswerKey.Builder openKeyBuilder(String exerciseFile) {
+        try {
+            return new AnswerKey.Builder(exerciseFile);
+        } catch (IOException e) {
+            System.err.println("无法建立答案缓存，本次评分不使用缓存: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * 解析答案行中的用户答案
+     * 放弃写到一半的答案缓存，评分继续进行
+     * @return null，调用方用它清空缓存引用
      */
-    private Fraction parseAnswer(String answerLine) {
-        // 提取答案部分（去除题号）
-        Pattern pattern = Pattern.compile("^\\d+\\.\\s+(.+)$");
-        Matcher matcher = pattern.matcher(answerLine);
-        if (matcher.find()) {
-            String answerStr = matcher.group(1).trim();
-            return Fraction.parse(answerStr);
+    private static AnswerKey.Builder abandonKey(AnswerKey.Builder key, IOException cause) {
+        System.err.println("无法写入答案缓存，本次评分不使用缓存: " + cause.getMessage());
+        try {
+            key.close();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
         }
         return null;
     }
 
     /**
-     * 格式化数字列表，例如 (1, 2, 3)
+     * 逐行评判，同时把每道题目的标准答案和题目文件的哈希写入答案缓存
+     * 答案文件较短时继续计算剩余题目的标准答案，保证缓存完整
+     * 写缓存出错只放弃缓存，不影响评分结果
+     */
+    private void gradeAndBuildKey(String exerciseFile, String answerFile, AnswerKey.Builder builder,
+                                  ProblemNumberRuns correctProblems, ProblemNumberRuns wrongProblems) throws IOException {
+        MessageDigest digest = AnswerKey.newDigest();
+        AnswerKey.Builder key = builder; // 写缓存出错后为 null
+        try (BufferedReader exercises = new BufferedReader(new InputStreamReader(
+                new DigestInputStream(Files.newInputStream(Paths.get(exerciseFile)), digest), StandardCharsets.UTF_8));
+             BufferedReader userAnswers = new BufferedReader(new FileReader(answerFile, StandardCharsets.UTF_8))) {
+            String exercise;
+            boolean answersLeft = true;
+            while ((exercise = exercises.readLine()) != null) {
+                int problemNumber = extractProblemNumber(exercise);
+                String userAnswer = answersLeft ? userAnswers.readLine() : null;
+                answersLeft = userAnswer != null;
+
+                Fraction expectedAnswer;
+                try {
+                    expectedAnswer = calculateAnswer(exercise);
+                } catch (Exception e) {
+                    if (key != null) {
+                        try {
+                            key.addError(problemNumber, e.getMessage());
+                        } catch (IOException writeError) {
+                            key = abandonKey(key, writeError);
+                        }
+                    }
+                    if (answersLeft) {
+                        wrongProblems.add(problemNumber);
+                        System.err.println("处理题目 " + problemNumber + " 时出错: " + e.getMessage());
+                    }
+                    continue;
+                }
+                if (key != null) {
+                    try {
+                        key.add(problemNumber, expectedAnswer);
+                    } catch (IOException writeError) {
+                        key = abandonKey(key, writeError);
+                    }
+                }
+                if (answersLeft) {
+                    gradeAnswer(problemNumber, expectedAnswer, userAnswer, correctProblems, wrongProblems);
+                }
+            }
+            if (key != null) {
+                try {
+                    key.commit(digest.digest());
+                } catch (IOException writeError) {
+                    key = abandonKey(key, writeError);
+                }
+            }
+        } finally {
+            if (key != null) {
+                key.close(); // 未提交时删除临时文件
+            }
+        }
+    }
+
+    /**
+     * 按二进制题目集评判，答案来自文本答案文件或另一个二进制题目集
      */
-    private String formatNumberList(List<Integer> numbers) {
-        if (numbers.isEmpty()) {
-            return "()";
+    private void gradeProblemSet(String exerciseFile, String answerFile, ProblemNumberRuns correctProblems,
+                                 ProblemNumberRuns wrongProblems) throws IOException {
+        try (ProblemSetFile.Reader exercises = ProblemSetFile.open(exerciseFile)) {
+            if (ProblemSetFile.isProblemSet(answerFile)) {
+                try (ProblemSetFile.Reader userAnswers = ProblemSetFile.open(answerFile)) {
+                    long count = Math.min(exercises.size(), userAnswers.size());
+                    for (long i = 0; i < count; i++) {
+                        ProblemSetFile.Entry exercise = exercises.get(i);
+                        gradeProblem(exercise.getProblemNumber(), exercise.getProgram(), userAnswers.get(i).getAnswer(),
+                                correctProblems, wrongProblems);
+                    }
+                }
+                return;
+            }
+
+            try (BufferedReader userAnswers = new BufferedReader(new FileReader(answerFile, StandardCharsets.UTF_8))) {
+                String userAnswer;
+                for (long i = 0; i < exercises.size() && (userAnswer = userAnswers.readLine()) != null; i++) {
+                    ProblemSetFile.Entry exercise = exercises.get(i);
+                    Fraction providedAnswer = parseAnswerQuietly(exercise.getProblemNumber(), userAnswer);
+                    gradeProblem(exercise.getProblemNumber(), exercise.getProgram(), providedAnswer,
+                            correctProblems, wrongProblems);
+                }
+            }
         }
+    }
 
-        StringBuilder sb = new StringBuilder("(");
-        for (int i = 0; i < numbers.size(); i++) {
-            if (i > 0) {
-                sb.append(", ");
+    /**
+     * 评判一道编译好的题目，providedAnswer 为 null 表示没有答案或答案无法解析
+     */
+    void gradeProblem(int problemNumber, ExpressionProgram program, Fraction providedAnswer,
+                      ProblemNumberRuns correctProblems, ProblemNumberRuns wrongProblems) {
+        try {
+            if (providedAnswer != null && program.evaluate().equals(providedAnswer)) {
+                correctProblems.add(problemNumber);
+            } else {
+                wrongProblems.add(problemNumber);
             }
-            sb.append(numbers.get(i));
+        } catch (Exception e) {
+            wrongProblems.add(problemNumber);
+            System.err.println("处理题目 " + problemNumber + " 时出错: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 评判一道题目，并把题号记入答对或答错的列表
+     */
+    void gradeProblem(String exercise, String userAnswer, ProblemNumberRuns correctProblems, ProblemNumberRuns wrongProblems) {
+        // 提取题号和标准答案
+        int problemNumber = extractProblemNumber(exercise);
+
+        Fraction expectedAnswer;
+        try {
+            expectedAnswer = calculateAnswer(exercise);
+        } catch (Exception e) {
+            wrongProblems.add(problemNumber);
+            System.err.println("处理题目 " + problemNumber + " 时出错: " + e.getMessage());
+            return;
+        }
+        gradeAnswer(problemNumber, expectedAnswer, userAnswer, correctProblems, wrongProblems);
+    }
+
+    /**
+     * 把用户答案与已知的标准答案比较，并把题号记入答对或答错的列表
+     */
+    void gradeAnswer(int problemNumber, Fraction expectedAnswer, String userAnswer,
+                     ProblemNumberRuns correctProblems, ProblemNumberRuns wrongProblems) {
+        try {
+            Fraction providedAnswer = parseAnswer(userAnswer);
+
+            // 检查用户答案是否正确
+            if (expectedAnswer != null && providedAnswer != null &&
+                    expectedAnswer.equals(providedAnswer)) {
+                correctProblems.add(problemNumber);
+            } else {
+                wrongProblems.add(problemNumber);
+            }
+        } catch (Exception e) {
+            wrongProblems.add(problemNumber);
+            System.err.println("处理题目 " + problemNumber + " 时出错: " + e.getMessage());
         }
-        sb.append(")");
-        return sb.toString();
     }
-}
 
+    /**
+     * 写出评分报告
+     */
+    void writeReport(String reportFile, ProblemNumberRuns correctProblems, ProblemNumberRuns wrongProblems) throws IOException {
+        try (Utf8FileWriter writer = new Utf8FileWriter(reportFile)) {
+            appendReport(writer, correctProblems, wrongProblems);
+        }
+    }
+
+    /**
+     * 按 Grade.txt 的格式输出评分报告
+     */
+    public static void appendReport(Appendable out, ProblemNumberRuns correctProblems,
+                                    ProblemNumberRuns wrongProblems) throws IOException {
+        out.append("正确: ").append(Long.toString(correctProblems.size())).append(' ');
+        correctProblems.appendTo(out);
+        out.append(System.lineSeparator());
+        out.append("错误: ").append(Long.toString(wrongProblems.size())).append(' ');
+        wrongProblems.appendTo(out);
+        out.append(System.lineSeparator());
+    }
+
+    /**
+     * 从题目行中提取题号
+     */
+    private int extractProblemNumber(String line) {
+        return LineDecoder.problemNumber(line);
+    }
+
+    /**
+     * 计算题目的标准答案
+     */
+    Fraction calculateAnswer(String exercise) {
+        // 提取题目中的表达式
+        String expressionStr = LineDecoder.expression(exercise);
+
+        // 边解析边求值，不构建表达式树和 RPN 列表；相同的表达式文本直接取缓存的结果
+        if (evaluationCache != null) {
+            return evaluationCache.get(expressionStr, ExpressionEvaluator::evaluate);
+        }
+        return ExpressionEvaluator.evaluate(expressionStr);
+    }
+
+    /**
+     * 解析答案行中的用户答案
+     */
+    private Fraction parseAnswer(String answerLine) {
+        // 提取答案部分（去除题号）
+        String answerStr = LineDecoder.answer(answerLine);
+        return answerStr != null ? Fraction.parse(answerStr) : null;
+    }
+}
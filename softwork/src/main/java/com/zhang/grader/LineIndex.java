@@ -0,0 +1,277 @@
+package com.zhang.grader;
+
+import com.zhang.utils.LineDecoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文本文件的行偏移索引，保存在旁边的 "文件名.idx" 中
+ * 索引文件依次保存文件头和每行起始位置（定长 long），最后再加一个文件末尾的位置，
+ * 第 i 行即为 [offsets[i], offsets[i+1]) 去掉行结束符。行的切分规则与 BufferedReader.readLine 相同。
+ * 文件头记录源文件的大小和修改时间（纳秒，精度取决于文件系统），源文件变化后自动重建；
+ * 只比较这两项而不校验内容，因此在同一个时间戳内改写成相同大小的内容时会继续使用过期的索引。
+ * 索引文件只建一次，之后内存映射读取，
+ * 按题号读取任意一行只需读索引中的两个 long 和该行本身，与文件大小无关。
+ * 题号按 "第 N 题在第 N 行" 直接定位；编号不连续时按题号递增的假设二分查找。
+ * 可在线程间共享。
+ */
+public final class LineIndex implements Closeable {
+    private static final int MAGIC = 0x5A4C4931; // "ZLI1"
+    private static final int VERSION = 2; // 版本 2 起修改时间以纳秒记录
+    private static final int HEADER_SIZE = 32;
+    private static final int BUFFER_SIZE = 1 << 20; // 1MB
+    private static final int PREFIX_BYTES = 16; // 读取题号时只需行首的少量字节
+
+    private final FileChannel source;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer offsets;
+    private final long lineCount;
+
+    private LineIndex(FileChannel source, FileChannel indexChannel, MappedByteBuffer offsets, long lineCount) {
+        this.source = source;
+        this.indexChannel = indexChannel;
+        this.offsets = offsets;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * 打开文件的行索引，索引不存在或已过期时先建立索引
+     */
+    public static LineIndex open(String file) throws IOException {
+        Path path = Paths.get(file);
+        Path indexPath = indexPath(path);
+        if (!isCurrent(path, indexPath)) {
+            build(path, indexPath);
+        }
+
+        FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+        FileChannel indexChannel = null;
+        try {
+            indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ);
+            if (indexChannel.size() > Integer.MAX_VALUE) {
+                throw new IOException("索引文件太大: " + indexPath);
+            }
+            MappedByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+            long lineCount = index.getLong(24);
+            if (HEADER_SIZE + (lineCount + 1) * Long.BYTES != index.limit()) {
+                throw new IOException("索引文件已损坏: " + indexPath);
+            }
+            return new LineIndex(source, indexChannel, index, lineCount);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+            throw e;
+        }
+    }
+
+    static Path indexPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".idx");
+    }
+
+    /**
+     * 索引文件存在，且记录的源文件大小和修改时间与当前一致
+     */
+    private static boolean isCurrent(Path file, Path indexPath) throws IOException {
+        if (!Files.isRegularFile(indexPath) || Files.size(indexPath) < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满文件头
+            }
+        }
+        return header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                && header.getLong(8) == Files.size(file)
+                && header.getLong(16) == modifiedTime(file);
+    }
+
+    private static long modifiedTime(Path file) throws IOException {
+        return Files.getLastModifiedTime(file).to(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 扫描一遍源文件，把每行的起始位置依次写入索引文件
+     * 先写临时文件再替换，并发的读者不会看到写了一半的索引；临时文件名每次不同，并发建立索引时互不干扰
+     */
+    private static void build(Path file, Path indexPath) throws IOException {
+        Path directory = indexPath.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, indexPath.getFileName() + ".", ".tmp");
+        try {
+            write(file, temporary);
+            Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void write(Path file, Path temporary) throws IOException {
+        long size = Files.size(file);
+        long modified = modifiedTime(file);
+
+        long lineCount = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            ByteBuffer output = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            output.position(HEADER_SIZE);
+
+            long position = 0; // input 中第一个字节在文件中的位置
+            boolean lineStart = true; // 下一个字节是新行的开头
+            boolean afterCr = false; // 上一个字节是 '\r'，紧跟的 '\n' 属于同一个行结束符
+            while (position < size && in.read(input) >= 0) {
+                input.flip();
+                int limit = input.limit();
+                for (int i = 0; i < limit; i++) {
+                    byte b = input.get(i);
+                    if (afterCr && b == '\n') {
+                        afterCr = false;
+                        continue;
+                    }
+                    afterCr = b == '\r';
+                    if (lineStart) {
+                        output = put(out, output, position + i);
+                        lineCount++;
+                        lineStart = false;
+                    }
+                    if (b == '\n' || b == '\r') {
+                        lineStart = true;
+                    }
+                }
+                position += limit;
+                input.clear();
+            }
+            output = put(out, output, size); // 最后一行的结束位置
+
+            output.flip();
+            while (output.hasRemaining()) {
+                out.write(output);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(modified).putLong(lineCount).flip();
+            while (header.hasRemaining()) {
+                out.write(header, header.position());
+            }
+        }
+    }
+
+    private static ByteBuffer put(FileChannel out, ByteBuffer output, long offset) throws IOException {
+        if (output.remaining() < Long.BYTES) {
+            output.flip();
+            while (output.hasRemaining()) {
+                out.write(output);
+            }
+            output.clear();
+        }
+        output.putLong(offset);
+        return output;
+    }
+
+    /**
+     * 行数
+     */
+    public long lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * 第 line 行（从 0 开始）的内容，不含行结束符
+     */
+    public String line(long line) throws IOException {
+        if (line < 0 || line >= lineCount) {
+            throw new IndexOutOfBoundsException("行号超出范围: " + line);
+        }
+        return read(start(line), start(line + 1));
+    }
+
+    /**
+     * 题号为 problemNumber 的行，不存在时返回 null
+     */
+    public String problem(int problemNumber) throws IOException {
+        long line = find(problemNumber);
+        return line >= 0 ? line(line) : null;
+    }
+
+    /**
+     * 题号所在的行号，不存在时返回 -1
+     */
+    long find(int problemNumber) throws IOException {
+        if (problemNumber <= 0) {
+            return -1;
+        }
+        // 通常第 N 题就在第 N 行
+        long line = problemNumber - 1L;
+        if (line < lineCount && problemNumberAt(line) == problemNumber) {
+            return line;
+        }
+
+        long low = 0;
+        long high = lineCount - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int number = problemNumberAt(mid);
+            if (number == problemNumber) {
+                return mid;
+            } else if (number < problemNumber) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int problemNumberAt(long line) throws IOException {
+        long start = start(line);
+        String prefix = read(start, Math.min(start(line + 1), start + PREFIX_BYTES));
+        try {
+            return LineDecoder.problemNumber(prefix);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private long start(long line) {
+        return offsets.getLong(HEADER_SIZE + (int) line * Long.BYTES);
+    }
+
+    /**
+     * 读取 [start, end) 的字节并按 UTF-8 解码，去掉结尾的行结束符
+     */
+    private String read(long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("文件在建立索引后被截断");
+            }
+        }
+        int length = buffer.limit();
+        byte[] bytes = buffer.array();
+        while (length > 0 && (bytes[length - 1] == '\n' || bytes[length - 1] == '\r')) {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            source.close();
+        } finally {
+            indexChannel.close();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.zhang.grader;
+
+import com.zhang.utils.ProblemSetFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * 多线程评分
+ * 将题目文件和答案文件内存映射后按换行符切分为若干块，在 ForkJoinPool 上并行评分，
+ * 再按块的顺序合并结果，因此 Grade.txt 与单线程评分的输出完全一致。
+ * 行的切分规则与 BufferedReader.readLine 相同（\n、\r、\r\n 都视为行结束），
+ * 文本按 UTF-8 解码，与 Grader 一致。
+ * 题目文件已有答案缓存（见 AnswerKey）时交给 Grader 按缓存评分，只需解析用户答案；并行评分本身不建立缓存。
+ */
+public class ParallelGrader {
+    private static final long MIN_CHUNK_SIZE = 1L << 20; // 每块至少 1MB，避免任务过碎
+    private static final long MAX_CHUNK_SIZE = 1L << 28; // 每块最多 256MB，单个映射区域不能超过 2GB
+    private static final int CHUNKS_PER_THREAD = 4; // 每个线程分到的块数，用于负载均衡
+
+    private final Grader grader;
+    private final int threads;
+    private final long minChunkSize;
+    private final Charset charset = StandardCharsets.UTF_8;
+
+    public ParallelGrader(int threads) {
+        this(threads, new Grader());
+    }
+
+    /**
+     * @param grader 评判单道题目时使用的 Grader，其答案缓存和表达式缓存设置同样生效；表达式缓存在线程间共享
+     */
+    public ParallelGrader(int threads, Grader grader) {
+        this(threads, grader, MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * @param minChunkSize 每块的最小字节数，测试时用较小的值把小文件切成多块
+     */
+    ParallelGrader(int threads, Grader grader, long minChunkSize) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        this.threads = threads;
+        this.grader = grader;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * 评估用户答案并生成评分报告，输出与 Grader.grade 相同
+     * @param exerciseFile 练习题文件的路径
+     * @param answerFile 答案文件的路径
+     */
+    public void grade(String exerciseFile, String answerFile) throws IOException {
+        if (ProblemSetFile.isProblemSet(exerciseFile) || ProblemSetFile.isProblemSet(answerFile)
+                || (grader.usesAnswerKey() && Files.isRegularFile(AnswerKey.keyPath(Paths.get(exerciseFile))))) {
+            // 二进制题目集或已缓存的标准答案不需要解析题目，单线程评分已经足够快
+            grader.grade(exerciseFile, answerFile);
+            return;
+        }
+
+        ProblemNumberRuns correctProblems = new ProblemNumberRuns(); // 记录答对的题号
+        ProblemNumberRuns wrongProblems = new ProblemNumberRuns(); // 记录答错的题号
+        grade(exerciseFile, answerFile, correctProblems, wrongProblems);
+
+        // 将评分结果写入 Grade.txt 文件
+        grader.writeReport("Grade.txt", correctProblems, wrongProblems);
+
+        System.out.println("评分完成，结果已保存到 Grade.txt");
+    }
+
+    /**
+     * 并行评判文本形式的题目和答案，题号按题目顺序记入答对或答错的列表
+     * 不使用答案缓存，也不写出报告
+     */
+    void grade(String exerciseFile, String answerFile, ProblemNumberRuns correctProblems,
+               ProblemNumberRuns wrongProblems) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (FileChannel exercises = FileChannel.open(Paths.get(exerciseFile), StandardOpenOption.READ);
+             FileChannel userAnswers = FileChannel.open(Paths.get(answerFile), StandardOpenOption.READ)) {
+            Chunk[] exerciseChunks = split(exercises);
+            Chunk[] answerChunks = split(userAnswers);
+            long exerciseLines = countLines(pool, exerciseChunks);
+            long answerLines = countLines(pool, answerChunks);
+
+            // 题目数量和答案数量不一致时，只评到较短的文件结束为止
+            long lineCount = Math.min(exerciseLines, answerLines);
+
+            List<Callable<ProblemNumberRuns[]>> tasks = new ArrayList<>();
+            for (int i = 0; i < exerciseChunks.length && exerciseChunks[i].firstLine < lineCount; i++) {
+                final int chunkIndex = i;
+                tasks.add(() -> gradeChunk(exerciseChunks, chunkIndex, answerChunks, lineCount));
+            }
+
+            // 按块的顺序合并，保证题号顺序与单线程评分相同
+            for (Future<ProblemNumberRuns[]> result : pool.invokeAll(tasks)) {
+                ProblemNumberRuns[] runs = get(result);
+                correctProblems.addAll(runs[0]);
+                wrongProblems.addAll(runs[1]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 评判一块题目，返回 {答对的题号, 答错的题号}
+     */
+    private ProblemNumberRuns[] gradeChunk(Chunk[] exerciseChunks, int chunkIndex, Chunk[] answerChunks, long lineCount) {
+        Chunk chunk = exerciseChunks[chunkIndex];
+        long firstLine = chunk.firstLine;
+        long lastLine = Math.min(firstLine + chunk.lineCount, lineCount);
+
+        LineCursor exercises = new LineCursor(exerciseChunks, chunkIndex);
+        LineCursor userAnswers = new LineCursor(answerChunks, findChunk(answerChunks, firstLine));
+        userAnswers.skipLines(firstLine - answerChunks[userAnswers.chunkIndex].firstLine);
+
+        ProblemNumberRuns correct = new ProblemNumberRuns();
+        ProblemNumberRuns wrong = new ProblemNumberRuns();
+        for (long line = firstLine; line < lastLine; line++) {
+            grader.gradeProblem(exercises.nextLine(), userAnswers.nextLine(), correct, wrong);
+        }
+        return new ProblemNumberRuns[] {correct, wrong};
+    }
+
+    /**
+     * 找到包含第 line 行的块（块的起始行号单调递增）
+     */
+    private static int findChunk(Chunk[] chunks, long line) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (chunks[mid].firstLine <= line) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 按换行符把文件切分为若干块并映射到内存，每块都从一行的开头开始
+     */
+    private Chunk[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.min(Math.max(size / ((long) threads * CHUNKS_PER_THREAD), minChunkSize), MAX_CHUNK_SIZE);
+
+        List<Chunk> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize);
+            chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+            start = end;
+        }
+        return chunks.toArray(new Chunk[0]);
+    }
+
+    /**
+     * 返回 position 之后第一个 '\n' 的下一个位置，没有时返回文件末尾
+     * 只在 '\n' 之后切分，避免把 "\r\n" 拆到两块中
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * 并行统计每块的行数，并计算每块的起始行号，返回总行数
+     */
+    private static long countLines(ForkJoinPool pool, Chunk[] chunks) throws IOException {
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            tasks.add(chunk::countLines);
+        }
+        long total = 0;
+        List<Future<Long>> results = pool.invokeAll(tasks);
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i].firstLine = total;
+            chunks[i].lineCount = get(results.get(i));
+            total += chunks[i].lineCount;
+        }
+        return total;
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("评分被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 文件中的一块，从一行的开头开始
+     */
+    private static final class Chunk {
+        final MappedByteBuffer buffer;
+        long firstLine; // 本块第一行在整个文件中的行号（从 0 开始）
+        long lineCount; // 本块包含的行数
+
+        Chunk(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        long countLines() {
+            int limit = buffer.limit();
+            long count = 0;
+            for (int i = 0; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || (b == '\r' && (i + 1 >= limit || buffer.get(i + 1) != '\n'))) {
+                    count++;
+                }
+            }
+            // 最后一行没有换行符
+            if (limit > 0) {
+                byte last = buffer.get(limit - 1);
+                if (last != '\n' && last != '\r') {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 从某一块开始逐行读取，读完一块后自动进入下一块
+     */
+    private final class LineCursor {
+        private final Chunk[] chunks;
+        private int chunkIndex;
+        private int position;
+        private byte[] line = new byte[256];
+
+        LineCursor(Chunk[] chunks, int chunkIndex) {
+            this.chunks = chunks;
+            this.chunkIndex = chunkIndex;
+        }
+
+        void skipLines(long count) {
+            for (long i = 0; i < count; i++) {
+                nextLine();
+            }
+        }
+
+        /**
+         * 读取下一行（不含行结束符）
+         */
+        String nextLine() {
+            ByteBuffer buffer = chunks[chunkIndex].buffer;
+            if (position >= buffer.limit()) {
+                chunkIndex++;
+                position = 0;
+                buffer = chunks[chunkIndex].buffer;
+            }
+
+            int limit = buffer.limit();
+            int length = 0;
+            while (position < limit) {
+                byte b = buffer.get(position++);
+                if (b == '\n') {
+                    break;
+                }
+                if (b == '\r') {
+                    if (position < limit && buffer.get(position) == '\n') {
+                        position++;
+                    }
+                    break;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+            return new String(line, 0, length, charset);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.zhang.grader;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * 按游程编码保存的题号列表，保留追加顺序和重复题号
+ * 连续追加的题号 n, n+1, n+2 ... 合并为一个 (起点, 长度) 游程，答案连续正确或连续错误时只占很少的内存。
+ * 对错交替时游程个数随题目数线性增长；只要题号严格递增（正常编号的题目文件评分时总是如此），
+ * 游程占用的内存超过位图时就改用位图，每个题号 1 位；加上游程数组按倍数扩容的余量，内存最多约为 最大题号 / 4 字节。
+ * 题号不再递增时退回游程编码。
+ */
+public class ProblemNumberRuns {
+    private int[] starts = new int[8]; // 每个游程的起始题号
+    private int[] lengths = new int[8]; // 每个游程包含的题号个数
+    private int runCount = 0; // 游程个数
+    private long size = 0; // 题号总数
+    private int lastNumber = -1; // 最后追加的题号
+    private boolean increasing = true; // 至今追加的题号是否非负且严格递增，只有这样才能改用位图
+    private BitSet bits = null; // 不为 null 时题号保存在位图中，游程数组不再使用
+
+    /**
+     * 追加一个题号
+     */
+    public void add(int number) {
+        boolean ascending = (size == 0 || number > lastNumber) && number >= 0 && number < Integer.MAX_VALUE;
+        lastNumber = number;
+        size++;
+        if (bits != null) {
+            // 题号远大于已有题号个数时位图会很稀疏，同样退回游程
+            if (ascending && number / Long.SIZE <= size) {
+                bits.set(number);
+                return;
+            }
+            toRuns();
+        }
+        increasing &= ascending;
+
+        if (runCount > 0) {
+            int last = runCount - 1;
+            if (lengths[last] < Integer.MAX_VALUE && (long) starts[last] + lengths[last] == number) {
+                lengths[last]++;
+                return;
+            }
+        }
+        // 每个游程占 8 字节，位图每 64 个题号占 8 字节
+        if (runCount == starts.length && increasing && runCount > number / Long.SIZE + 1) {
+            toBits();
+            bits.set(number);
+            return;
+        }
+        appendRun(number, 1);
+    }
+
+    private void appendRun(int start, int length) {
+        if (runCount == starts.length) {
+            starts = Arrays.copyOf(starts, runCount * 2);
+            lengths = Arrays.copyOf(lengths, runCount * 2);
+        }
+        starts[runCount] = start;
+        lengths[runCount] = length;
+        runCount++;
+    }
+
+    /**
+     * 把游程转换为位图（题号非负且严格递增时）
+     */
+    private void toBits() {
+        bits = new BitSet();
+        for (int i = 0; i < runCount; i++) {
+            bits.set(starts[i], starts[i] + lengths[i]);
+        }
+        starts = new int[8];
+        lengths = new int[8];
+        runCount = 0;
+    }
+
+    /**
+     * 把位图转换回游程
+     */
+    private void toRuns() {
+        for (int start = bits.nextSetBit(0); start >= 0; ) {
+            int end = bits.nextClearBit(start);
+            appendRun(start, end - start);
+            start = bits.nextSetBit(end);
+        }
+        bits = null;
+    }
+
+    /**
+     * 解析 "3,17,100-200" 形式的题号列表，按书写顺序保存
+     * @throws IllegalArgumentException 格式错误或题号不是正整数时
+     */
+    public static ProblemNumberRuns parse(String spec) {
+        ProblemNumberRuns numbers = new ProblemNumberRuns();
+        for (String part : spec.split(",")) {
+            String item = part.trim();
+            int dash = item.indexOf('-', 1);
+            try {
+                int first = Integer.parseInt(item.substring(0, dash < 0 ? item.length() : dash).trim());
+                int last = dash < 0 ? first : Integer.parseInt(item.substring(dash + 1).trim());
+                if (first <= 0 || last < first) {
+                    throw new IllegalArgumentException("Invalid problem range: " + item);
+                }
+                for (long number = first; number <= last; number++) {
+                    numbers.add((int) number);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid problem number: " + item);
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * 依次追加另一个列表中的全部题号
+     */
+    public void addAll(ProblemNumberRuns other) {
+        PrimitiveIterator.OfInt numbers = other.iterator();
+        while (numbers.hasNext()) {
+            add(numbers.nextInt());
+        }
+    }
+
+    /**
+     * 按追加顺序遍历全部题号
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        if (bits != null) {
+            BitSet numbers = bits;
+            return new PrimitiveIterator.OfInt() {
+                private int next = numbers.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int number = next;
+                    next = numbers.nextSetBit(number + 1);
+                    return number;
+                }
+            };
+        }
+        return new PrimitiveIterator.OfInt() {
+            private int run = 0;
+            private int offset = 0;
+
+            @Override
+            public boolean hasNext() {
+                return run < runCount;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int number = starts[run] + offset;
+                if (++offset == lengths[run]) {
+                    run++;
+                    offset = 0;
+                }
+                return number;
+            }
+        };
+    }
+
+    /**
+     * 题号总数
+     */
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 游程个数，连续的题号合并后只算一个；改用位图时按位图中的连续段计算
+     */
+    int runCount() {
+        if (bits == null) {
+            return runCount;
+        }
+        int count = 0;
+        for (int start = bits.nextSetBit(0); start >= 0; start = bits.nextSetBit(bits.nextClearBit(start))) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 是否已改用位图保存
+     */
+    boolean usesBits() {
+        return bits != null;
+    }
+
+    /**
+     * 按 (1, 2, 3) 的格式输出全部题号
+     */
+    public void appendTo(Appendable out) throws IOException {
+        out.append('(');
+        PrimitiveIterator.OfInt numbers = iterator();
+        boolean first = true;
+        while (numbers.hasNext()) {
+            if (!first) {
+                out.append(", ");
+            }
+            out.append(Integer.toString(numbers.nextInt()));
+            first = false;
+        }
+        out.append(')');
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            appendTo(sb);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringBuilder 不会抛出 IOException
+        }
+        return sb.toString();
+    }
+}
@@ -6,6 +6,7 @@ public class Expression {
     private Expression right; // 右子表达式
     private Operator operator; // 运算符
     private Fraction value; // 叶节点的值（如果是数值）
+    private Fraction cachedValue; // 操作节点首次求值后缓存的结果，树结构不变，因此只需计算一次
 
     // 叶节点构造函数（数值）
     public Expression(Fraction value) {
@@ -48,15 +49,22 @@ public class Expression {
 
     /**
      * 计算表达式的值
+     * 每个操作节点的值在首次计算后缓存在节点上，子表达式已求值时直接复用其结果
      */
     public Fraction evaluate() {
         if (isLeaf()) {
             return value;
         }
 
-        Fraction leftValue = left.evaluate();
-        Fraction rightValue = right.evaluate();
+        Fraction result = cachedValue;
+        if (result == null) {
+            result = apply(left.evaluate(), right.evaluate());
+            cachedValue = result;
+        }
+        return result;
+    }
 
+    private Fraction apply(Fraction leftValue, Fraction rightValue) {
         switch (operator) {
             case ADD:
                 return leftValue.add(rightValue);
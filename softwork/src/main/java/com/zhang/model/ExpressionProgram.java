@@ -0,0 +1,307 @@
+package com.zhang.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 编译后的表达式
+ * 表达式按 RPN 顺序编码为操作码字节数组，操作数存放在分子、分母两个 long 常量池中。
+ * 求值在每个线程复用的 long 数组栈上进行，没有装箱、instanceof 判断和同步开销；
+ * 运算溢出时整体退回到 MutableFraction 的精确实现。
+ * 编译结果不可变，可在线程间共享。
+ */
+public final class ExpressionProgram {
+    /**
+     * 操作码：压入常量池中的下一个常量
+     */
+    public static final byte PUSH = 0;
+    // 运算符的操作码为 1 + Operator.ordinal()
+    private static final Operator[] OPERATORS = Operator.values();
+
+    // 每个线程复用的求值栈，第 i 个元素的分子、分母分别位于 2i、2i+1
+    private static final ThreadLocal<long[]> STACKS = ThreadLocal.withInitial(() -> new long[32]);
+
+    private final byte[] code; // 操作码
+    private final long[] numerators; // 常量的分子（已约分）
+    private final long[] denominators; // 常量的分母（已约分，始终为正）
+    private final Fraction[] bigConstants; // 存在超出 long 范围的常量时保存全部常量，否则为 null
+    private final int maxStack; // 求值时需要的最大栈深度
+
+    private ExpressionProgram(byte[] code, long[] numerators, long[] denominators, Fraction[] bigConstants, int maxStack) {
+        this.code = code;
+        this.numerators = numerators;
+        this.denominators = denominators;
+        this.bigConstants = bigConstants;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * 将表达式树编译为程序
+     */
+    public static ExpressionProgram compile(Expression expr) {
+        List<Fraction> constants = new ArrayList<>();
+        byte[] code = new byte[countNodes(expr)];
+        int[] position = new int[1];
+        int maxStack = emit(expr, code, position, constants, 0);
+
+        long[] numerators = new long[constants.size()];
+        long[] denominators = new long[constants.size()];
+        boolean allLong = true;
+        for (int i = 0; i < constants.size(); i++) {
+            Fraction constant = constants.get(i);
+            if (constant.fitsInLong()) {
+                numerators[i] = constant.getNumerator();
+                denominators[i] = constant.getDenominator();
+            } else {
+                allLong = false;
+            }
+        }
+        Fraction[] bigConstants = allLong ? null : constants.toArray(new Fraction[0]);
+        return new ExpressionProgram(code, numerators, denominators, bigConstants, maxStack);
+    }
+
+    /**
+     * 由操作码和常量重建程序，例如从二进制题目文件中读出的程序
+     * @throws IllegalArgumentException 操作码无效、常量个数不符或栈不平衡时
+     */
+    public static ExpressionProgram of(byte[] code, Fraction[] constants) {
+        int depth = 0;
+        int maxStack = 0;
+        int pushes = 0;
+        for (byte op : code) {
+            if (op == PUSH) {
+                pushes++;
+                maxStack = Math.max(maxStack, ++depth);
+            } else {
+                operator(op);
+                if (depth < 2) {
+                    throw new IllegalArgumentException("操作数不足");
+                }
+                depth--;
+            }
+        }
+        if (depth != 1 || pushes != constants.length) {
+            throw new IllegalArgumentException("程序不完整");
+        }
+
+        long[] numerators = new long[constants.length];
+        long[] denominators = new long[constants.length];
+        boolean allLong = true;
+        for (int i = 0; i < constants.length; i++) {
+            if (constants[i].fitsInLong()) {
+                numerators[i] = constants[i].getNumerator();
+                denominators[i] = constants[i].getDenominator();
+            } else {
+                allLong = false;
+            }
+        }
+        return new ExpressionProgram(code.clone(), numerators, denominators, allLong ? null : constants.clone(), maxStack);
+    }
+
+    /**
+     * 还原为表达式树
+     */
+    public Expression toExpression() {
+        Expression[] stack = new Expression[maxStack];
+        int top = 0;
+        int constant = 0;
+        for (byte op : code) {
+            if (op == PUSH) {
+                stack[top++] = new Expression(getConstant(constant++));
+            } else {
+                top--;
+                stack[top - 1] = new Expression(stack[top - 1], operator(op), stack[top]);
+            }
+        }
+        return stack[0];
+    }
+
+    private static int countNodes(Expression expr) {
+        return expr.isLeaf() ? 1 : 1 + countNodes(expr.getLeft()) + countNodes(expr.getRight());
+    }
+
+    /**
+     * 后序遍历生成操作码，返回该子表达式求值所需的最大栈深度（depth 为进入时已占用的栈深度）
+     */
+    private static int emit(Expression expr, byte[] code, int[] position, List<Fraction> constants, int depth) {
+        if (expr.isLeaf()) {
+            code[position[0]++] = PUSH;
+            constants.add(expr.getValue());
+            return depth + 1;
+        }
+        int leftMax = emit(expr.getLeft(), code, position, constants, depth);
+        int rightMax = emit(expr.getRight(), code, position, constants, depth + 1);
+        code[position[0]++] = opcode(expr.getOperator());
+        return Math.max(leftMax, rightMax);
+    }
+
+    /**
+     * 运算符对应的操作码
+     */
+    public static byte opcode(Operator operator) {
+        return (byte) (1 + operator.ordinal());
+    }
+
+    /**
+     * 操作码对应的运算符，PUSH 或未知操作码时抛出异常
+     */
+    public static Operator operator(byte opcode) {
+        if (opcode < 1 || opcode > OPERATORS.length) {
+            throw new IllegalArgumentException("无效操作码: " + opcode);
+        }
+        return OPERATORS[opcode - 1];
+    }
+
+    /**
+     * 计算程序的值
+     */
+    public Fraction evaluate() {
+        if (bigConstants == null) {
+            try {
+                return evaluateLong();
+            } catch (ArithmeticException e) {
+                // 溢出（或除以零），改用精确实现重新计算；除以零会在精确实现中再次抛出
+            }
+        }
+        return evaluateExact();
+    }
+
+    /**
+     * 在 long 数组栈上求值，任何溢出都抛出 ArithmeticException
+     */
+    private Fraction evaluateLong() {
+        long[] stack = STACKS.get();
+        if (stack.length < 2 * maxStack) {
+            stack = new long[2 * maxStack];
+            STACKS.set(stack);
+        }
+
+        int top = 0; // 下一个空位的下标（每个元素占两个位置）
+        int constant = 0;
+        for (byte op : code) {
+            if (op == PUSH) {
+                stack[top] = numerators[constant];
+                stack[top + 1] = denominators[constant];
+                constant++;
+                top += 2;
+                continue;
+            }
+
+            top -= 2;
+            long n2 = stack[top];
+            long d2 = stack[top + 1];
+            int left = top - 2;
+            switch (op) {
+                case 1: // ADD
+                    add(stack, left, n2, d2);
+                    break;
+                case 2: // SUBTRACT
+                    add(stack, left, -n2, d2);
+                    break;
+                case 3: // MULTIPLY
+                    multiply(stack, left, n2, d2);
+                    break;
+                case 4: // DIVIDE
+                    if (n2 == 0) {
+                        throw new ArithmeticException("除数不能为零");
+                    }
+                    multiply(stack, left, n2 < 0 ? -d2 : d2, Math.abs(n2));
+                    break;
+                default:
+                    throw new IllegalStateException("无效操作码: " + op);
+            }
+        }
+        return Fraction.ofReduced(stack[0], stack[1]);
+    }
+
+    /**
+     * 快速路径加法，算法与 Fraction 相同，结果写入 stack[i]/stack[i+1]
+     */
+    private static void add(long[] stack, int i, long n2, long d2) {
+        long n1 = stack[i];
+        long d1 = stack[i + 1];
+        long g = Fraction.gcd(d1, d2);
+        if (g == 1) {
+            long n = Fraction.checked(Math.addExact(Math.multiplyExact(n1, d2), Math.multiplyExact(n2, d1)));
+            stack[i] = n;
+            stack[i + 1] = n == 0 ? 1 : Fraction.checked(Math.multiplyExact(d1, d2));
+            return;
+        }
+
+        long s = d1 / g;
+        long t = Fraction.checked(Math.addExact(Math.multiplyExact(n1, d2 / g), Math.multiplyExact(n2, s)));
+        if (t == 0) {
+            stack[i] = 0;
+            stack[i + 1] = 1;
+            return;
+        }
+        long g2 = Fraction.gcd(Math.abs(t), g);
+        stack[i] = t / g2;
+        stack[i + 1] = Fraction.checked(Math.multiplyExact(s, d2 / g2));
+    }
+
+    /**
+     * 快速路径乘法，先交叉约分再相乘，结果写入 stack[i]/stack[i+1]
+     */
+    private static void multiply(long[] stack, int i, long n2, long d2) {
+        long n1 = stack[i];
+        long d1 = stack[i + 1];
+        if (n1 == 0 || n2 == 0) {
+            stack[i] = 0;
+            stack[i + 1] = 1;
+            return;
+        }
+        long g1 = Fraction.gcd(Math.abs(n1), d2);
+        long g2 = Fraction.gcd(Math.abs(n2), d1);
+        stack[i] = Fraction.checked(Math.multiplyExact(n1 / g1, n2 / g2));
+        stack[i + 1] = Fraction.checked(Math.multiplyExact(d1 / g2, d2 / g1));
+    }
+
+    /**
+     * 使用 MutableFraction 精确求值，不会溢出
+     */
+    private Fraction evaluateExact() {
+        MutableFraction[] stack = MutableFraction.registers(maxStack);
+        int top = 0;
+        int constant = 0;
+        for (byte op : code) {
+            if (op == PUSH) {
+                if (bigConstants != null) {
+                    stack[top++].set(bigConstants[constant]);
+                } else {
+                    stack[top++].set(numerators[constant], denominators[constant]);
+                }
+                constant++;
+            } else {
+                top--;
+                stack[top - 1].apply(operator(op), stack[top]);
+            }
+        }
+        return stack[0].toFraction();
+    }
+
+    /**
+     * 操作码数组的副本
+     */
+    public byte[] getCode() {
+        return Arrays.copyOf(code, code.length);
+    }
+
+    /**
+     * 常量个数
+     */
+    public int getConstantCount() {
+        return bigConstants != null ? bigConstants.length : numerators.length;
+    }
+
+    /**
+     * 第 index 个常量
+     */
+    public Fraction getConstant(int index) {
+        if (bigConstants != null) {
+            return bigConstants[index];
+        }
+        return Fraction.ofReduced(numerators[index], denominators[index]);
+    }
+}
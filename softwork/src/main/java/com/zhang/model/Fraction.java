@@ -1,22 +1,49 @@
 package com.zhang.model;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.math.BigInteger;
 
+/**
+ * 分数（有理数）
+ * 数值能放进 long 时使用 long 快速路径；运算中发生溢出时（通过 Math.*Exact 精确检测）
+ * 才提升为 BigInteger 表示。结果若重新落回 long 范围，会自动降回快速路径，
+ * 因此同一个数值只有一种内部表示，equals/hashCode 可以直接比较字段。
+ */
 public class Fraction implements Comparable<Fraction> {
-    private final int numerator; // 分子
-    private final int denominator; // 分母
+    private static final Fraction ZERO = reduced(0, 1);
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+
+    // 规范实例缓存的默认大小与上限（类似 Integer.valueOf 的缓存）
+    private static final int DEFAULT_CACHED_DENOMINATOR = 16;
+    private static final int DEFAULT_CACHED_WHOLE = 128;
+    private static final int MAX_CACHED_DENOMINATOR = 512;
+    private static final int MAX_CACHED_WHOLE = 1 << 16;
+    private static volatile Cache cache = new Cache(DEFAULT_CACHED_DENOMINATOR, DEFAULT_CACHED_WHOLE);
+
+    private final long numerator; // 分子（快速路径）
+    private final long denominator; // 分母（快速路径，始终为正）
+    private final BigInteger bigNumerator; // 分子（溢出后使用，快速路径时为 null）
+    private final BigInteger bigDenominator; // 分母（溢出后使用，快速路径时为 null）
 
     /**
      * 构造一个分数
      * @param numerator 分子
      * @param denominator 分母
      */
-    public Fraction(int numerator, int denominator) {
+    public Fraction(long numerator, long denominator) {
         if (denominator == 0) {
             throw new ArithmeticException("除数不能为零");
         }
 
+        // Long.MIN_VALUE 取反或取绝对值会溢出，交给 BigInteger 处理
+        if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE) {
+            Fraction big = new Fraction(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+            this.numerator = big.numerator;
+            this.denominator = big.denominator;
+            this.bigNumerator = big.bigNumerator;
+            this.bigDenominator = big.bigDenominator;
+            return;
+        }
+
         // 始终保持分母为正
         if (denominator < 0) {
             numerator = -numerator;
@@ -24,102 +51,431 @@ public class Fraction implements Comparable<Fraction> {
         }
 
         // 简化分数
-        int gcd = gcd(Math.abs(numerator), denominator);
+        long gcd = gcd(Math.abs(numerator), denominator);
         this.numerator = numerator / gcd;
         this.denominator = denominator / gcd;
+        this.bigNumerator = null;
+        this.bigDenominator = null;
+    }
+
+    /**
+     * 构造一个任意精度的分数，数值能放进 long 时自动使用快速路径
+     */
+    public Fraction(BigInteger numerator, BigInteger denominator) {
+        if (denominator.signum() == 0) {
+            throw new ArithmeticException("除数不能为零");
+        }
+
+        // 始终保持分母为正
+        if (denominator.signum() < 0) {
+            numerator = numerator.negate();
+            denominator = denominator.negate();
+        }
+
+        // 简化分数
+        BigInteger gcd = numerator.gcd(denominator);
+        if (!gcd.equals(BigInteger.ONE)) {
+            numerator = numerator.divide(gcd);
+            denominator = denominator.divide(gcd);
+        }
+
+        if (fitsLong(numerator) && fitsLong(denominator)) {
+            this.numerator = numerator.longValue();
+            this.denominator = denominator.longValue();
+            this.bigNumerator = null;
+            this.bigDenominator = null;
+        } else {
+            this.numerator = 0;
+            this.denominator = 1;
+            this.bigNumerator = numerator;
+            this.bigDenominator = denominator;
+        }
     }
 
     /**
      * 构造一个自然数（分母为1的分数）
      */
-    public Fraction(int wholeNumber) {
+    public Fraction(long wholeNumber) {
         this(wholeNumber, 1);
     }
 
     /**
      * 构造一个带分数（整数部分+分数部分）
      */
-    public Fraction(int wholeNumber, int numerator, int denominator) {
-        this(wholeNumber * denominator + numerator, denominator);
+    public Fraction(long wholeNumber, long numerator, long denominator) {
+        this(mixed(wholeNumber, numerator, denominator));
+    }
+
+    /**
+     * 复制构造函数，供需要先选择表示方式的构造函数使用
+     */
+    private Fraction(Fraction other) {
+        this.numerator = other.numerator;
+        this.denominator = other.denominator;
+        this.bigNumerator = other.bigNumerator;
+        this.bigDenominator = other.bigDenominator;
+    }
+
+    /**
+     * 直接设置各字段，不检查也不约分
+     */
+    private Fraction(long numerator, long denominator, BigInteger bigNumerator, BigInteger bigDenominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.bigNumerator = bigNumerator;
+        this.bigDenominator = bigDenominator;
+    }
+
+    /**
+     * 已约分的快速路径分数，不查缓存；调用方保证分母为正、分子分母互质且都不是 Long.MIN_VALUE
+     */
+    private static Fraction reduced(long numerator, long denominator) {
+        return new Fraction(numerator, denominator, null, null);
+    }
+
+    /**
+     * 计算带分数 wholeNumber + numerator/denominator，溢出时改用 BigInteger
+     */
+    private static Fraction mixed(long wholeNumber, long numerator, long denominator) {
+        try {
+            return new Fraction(Math.addExact(Math.multiplyExact(wholeNumber, denominator), numerator), denominator);
+        } catch (ArithmeticException e) {
+            if (denominator == 0) {
+                throw e;
+            }
+            BigInteger whole = BigInteger.valueOf(wholeNumber).multiply(BigInteger.valueOf(denominator));
+            return new Fraction(whole.add(BigInteger.valueOf(numerator)), BigInteger.valueOf(denominator));
+        }
+    }
+
+    /**
+     * 由已约分的 long 分子分母构造分数，供运算结果和 MutableFraction 转回不可变分数时跳过约分
+     * 数值在缓存范围内时返回规范实例
+     */
+    static Fraction ofReduced(long numerator, long denominator) {
+        Fraction cached = cache.lookup(numerator, denominator);
+        return cached != null ? cached : reduced(numerator, denominator);
+    }
+
+    /**
+     * 获取分数 numerator/denominator，数值在缓存范围内时返回共享的规范实例
+     */
+    public static Fraction valueOf(long numerator, long denominator) {
+        // 缓存表中未约分的下标也指向约分后的实例，命中时无需计算最大公约数
+        Fraction cached = cache.lookup(numerator, denominator);
+        if (cached != null) {
+            return cached;
+        }
+        Fraction fraction = new Fraction(numerator, denominator);
+        if (fraction.isSmall()) {
+            cached = cache.lookup(fraction.numerator, fraction.denominator);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return fraction;
+    }
+
+    /**
+     * 获取自然数，数值在缓存范围内时返回共享的规范实例
+     */
+    public static Fraction valueOf(long wholeNumber) {
+        Fraction cached = cache.lookup(wholeNumber, 1);
+        return cached != null ? cached : new Fraction(wholeNumber);
+    }
+
+    /**
+     * 获取带分数（整数部分+分数部分），数值在缓存范围内时返回共享的规范实例
+     */
+    public static Fraction valueOf(long wholeNumber, long numerator, long denominator) {
+        if (wholeNumber == 0) {
+            return valueOf(numerator, denominator);
+        }
+        Fraction fraction = mixed(wholeNumber, numerator, denominator);
+        if (fraction.isSmall()) {
+            Fraction cached = cache.lookup(fraction.numerator, fraction.denominator);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return fraction;
+    }
+
+    /**
+     * 按数值范围扩大规范实例缓存，覆盖分母不超过 range 的真分数和不超过 range 的自然数
+     * 缓存只增不减，超过上限的部分不缓存
+     */
+    public static synchronized void cacheRange(int range) {
+        Cache current = cache;
+        int maxDenominator = Math.min(Math.max(range, current.maxDenominator), MAX_CACHED_DENOMINATOR);
+        int maxWhole = Math.min(Math.max(range, current.maxWhole), MAX_CACHED_WHOLE);
+        if (maxDenominator > current.maxDenominator || maxWhole > current.maxWhole) {
+            cache = new Cache(maxDenominator, maxWhole);
+        }
+    }
+
+    /**
+     * 规范实例缓存表，创建后不再修改
+     * table[1][n] 为自然数 n；table[d][n]（0 < n < d）为 n/d 约分后的实例
+     */
+    private static final class Cache {
+        final int maxDenominator;
+        final int maxWhole;
+        final Fraction[][] table;
+
+        Cache(int maxDenominator, int maxWhole) {
+            this.maxDenominator = maxDenominator;
+            this.maxWhole = maxWhole;
+            this.table = new Fraction[maxDenominator + 1][];
+
+            Fraction[] wholes = new Fraction[maxWhole + 1];
+            wholes[0] = ZERO;
+            for (int n = 1; n <= maxWhole; n++) {
+                wholes[n] = reduced(n, 1);
+            }
+            table[1] = wholes;
+
+            for (int d = 2; d <= maxDenominator; d++) {
+                Fraction[] row = new Fraction[d];
+                row[0] = ZERO;
+                for (int n = 1; n < d; n++) {
+                    int g = (int) gcd(n, d);
+                    // 分母更小的行已经建好，未约分的位置直接复用约分后的实例
+                    row[n] = g == 1 ? reduced(n, d) : table[d / g][n / g];
+                }
+                table[d] = row;
+            }
+        }
+
+        /**
+         * 查找 numerator/denominator 对应的规范实例，不在缓存范围内时返回 null
+         */
+        Fraction lookup(long numerator, long denominator) {
+            if (numerator < 0) {
+                return null;
+            }
+            if (denominator == 1) {
+                return numerator <= maxWhole ? table[1][(int) numerator] : null;
+            }
+            if (denominator > 1 && denominator <= maxDenominator && numerator < denominator) {
+                return table[(int) denominator][(int) numerator];
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 判断 BigInteger 是否能用快速路径表示（排除 Long.MIN_VALUE）
+     */
+    private static boolean fitsLong(BigInteger value) {
+        return value.bitLength() < 64 && !value.equals(LONG_MIN);
     }
 
     /**
-     * 计算最大公约数 (GCD)
+     * 检查运算结果不是 Long.MIN_VALUE，否则按溢出处理
      */
-    private int gcd(int a, int b) {
-        while (b != 0) {
-            int temp = b;
-            b = a % b;
-            a = temp;
+    static long checked(long value) {
+        if (value == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
         }
-        return a;
+        return value;
+    }
+
+    /**
+     * 计算最大公约数 (GCD)，数值较小时使用 GcdTable 查表
+     */
+    static long gcd(long a, long b) {
+        return GcdTable.gcd(a, b);
+    }
+
+    /**
+     * 是否处于 long 快速路径
+     */
+    private boolean isSmall() {
+        return bigNumerator == null;
+    }
+
+    /**
+     * 分子分母是否都能用 long 表示
+     */
+    public boolean fitsInLong() {
+        return isSmall();
+    }
+
+    /**
+     * 获取 long 形式的分子，仅当 fitsInLong() 为 true 时可用
+     */
+    public long getNumerator() {
+        if (!isSmall()) {
+            throw new ArithmeticException("分子超出 long 范围");
+        }
+        return numerator;
+    }
+
+    /**
+     * 获取 long 形式的分母（始终为正），仅当 fitsInLong() 为 true 时可用
+     */
+    public long getDenominator() {
+        if (!isSmall()) {
+            throw new ArithmeticException("分母超出 long 范围");
+        }
+        return denominator;
+    }
+
+    /**
+     * 获取任意精度的分子
+     */
+    public BigInteger getBigNumerator() {
+        return bigNumerator();
+    }
+
+    /**
+     * 获取任意精度的分母（始终为正）
+     */
+    public BigInteger getBigDenominator() {
+        return bigDenominator();
+    }
+
+    private BigInteger bigNumerator() {
+        return bigNumerator != null ? bigNumerator : BigInteger.valueOf(numerator);
+    }
+
+    private BigInteger bigDenominator() {
+        return bigDenominator != null ? bigDenominator : BigInteger.valueOf(denominator);
+    }
+
+    /**
+     * 快速路径加法：先按分母的最大公约数约去公因子再相乘，结果已是最简分数。
+     * 任何一步溢出都会抛出 ArithmeticException，由调用方回退到 BigInteger。
+     */
+    private static Fraction addExact(long n1, long d1, long n2, long d2) {
+        long g = gcd(d1, d2);
+        if (g == 1) {
+            long n = checked(Math.addExact(Math.multiplyExact(n1, d2), Math.multiplyExact(n2, d1)));
+            long d = checked(Math.multiplyExact(d1, d2));
+            return ofReduced(n, d);
+        }
+
+        long s = d1 / g;
+        long t = checked(Math.addExact(Math.multiplyExact(n1, d2 / g), Math.multiplyExact(n2, s)));
+        if (t == 0) {
+            return ZERO;
+        }
+        long g2 = gcd(Math.abs(t), g);
+        return ofReduced(t / g2, checked(Math.multiplyExact(s, d2 / g2)));
+    }
+
+    /**
+     * 快速路径乘法：先交叉约分再相乘，结果已是最简分数。
+     */
+    private static Fraction multiplyExact(long n1, long d1, long n2, long d2) {
+        if (n1 == 0 || n2 == 0) {
+            return ZERO;
+        }
+        long g1 = gcd(Math.abs(n1), d2);
+        long g2 = gcd(Math.abs(n2), d1);
+        long n = checked(Math.multiplyExact(n1 / g1, n2 / g2));
+        long d = checked(Math.multiplyExact(d1 / g2, d2 / g1));
+        return ofReduced(n, d);
     }
 
     /**
      * 分数加法
      */
     public Fraction add(Fraction other) {
-        int newNumerator = this.numerator * other.denominator + other.numerator * this.denominator;
-        int newDenominator = this.denominator * other.denominator;
-        return new Fraction(newNumerator, newDenominator);
+        if (isSmall() && other.isSmall()) {
+            try {
+                return addExact(numerator, denominator, other.numerator, other.denominator);
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 BigInteger
+            }
+        }
+        BigInteger newNumerator = bigNumerator().multiply(other.bigDenominator())
+                .add(other.bigNumerator().multiply(bigDenominator()));
+        return new Fraction(newNumerator, bigDenominator().multiply(other.bigDenominator()));
     }
 
     /**
      * 分数减法
      */
     public Fraction subtract(Fraction other) {
-        int newNumerator = this.numerator * other.denominator - other.numerator * this.denominator;
-        int newDenominator = this.denominator * other.denominator;
-        return new Fraction(newNumerator, newDenominator);
+        if (isSmall() && other.isSmall()) {
+            try {
+                return addExact(numerator, denominator, -other.numerator, other.denominator);
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 BigInteger
+            }
+        }
+        BigInteger newNumerator = bigNumerator().multiply(other.bigDenominator())
+                .subtract(other.bigNumerator().multiply(bigDenominator()));
+        return new Fraction(newNumerator, bigDenominator().multiply(other.bigDenominator()));
     }
 
     /**
      * 分数乘法
      */
     public Fraction multiply(Fraction other) {
-        int newNumerator = this.numerator * other.numerator;
-        int newDenominator = this.denominator * other.denominator;
-        return new Fraction(newNumerator, newDenominator);
+        if (isSmall() && other.isSmall()) {
+            try {
+                return multiplyExact(numerator, denominator, other.numerator, other.denominator);
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 BigInteger
+            }
+        }
+        return new Fraction(bigNumerator().multiply(other.bigNumerator()),
+                bigDenominator().multiply(other.bigDenominator()));
     }
 
     /**
      * 分数除法
      */
     public Fraction divide(Fraction other) {
-        if (other.numerator == 0) {
+        if (other.isZero()) {
             throw new ArithmeticException("除数不能为零");
         }
-        int newNumerator = this.numerator * other.denominator;
-        int newDenominator = this.denominator * other.numerator;
-        return new Fraction(newNumerator, newDenominator);
+        if (isSmall() && other.isSmall()) {
+            try {
+                // 乘以倒数，倒数的符号移到分子上以保持分母为正
+                long reciprocalNumerator = other.numerator < 0 ? -other.denominator : other.denominator;
+                return multiplyExact(numerator, denominator, reciprocalNumerator, Math.abs(other.numerator));
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 BigInteger
+            }
+        }
+        return new Fraction(bigNumerator().multiply(other.bigDenominator()),
+                bigDenominator().multiply(other.bigNumerator()));
     }
 
     /**
      * 判断分数是否为负
      */
     public boolean isNegative() {
-        return numerator < 0;
+        return isSmall() ? numerator < 0 : bigNumerator.signum() < 0;
     }
 
     /**
      * 判断分数是否为零
      */
     public boolean isZero() {
-        return numerator == 0;
+        // BigInteger 表示的数值绝对值一定超出 long 范围，不可能为零
+        return isSmall() && numerator == 0;
     }
 
     /**
      * 判断是否为真分数（分子绝对值小于分母）
      */
     public boolean isProperFraction() {
-        return Math.abs(numerator) < denominator;
+        if (isSmall()) {
+            return Math.abs(numerator) < denominator;
+        }
+        return bigNumerator.abs().compareTo(bigDenominator) < 0;
     }
 
     /**
      * 判断是否为整数（分母为1）
      */
     public boolean isWholeNumber() {
-        return denominator == 1;
+        return isSmall() ? denominator == 1 : bigDenominator.equals(BigInteger.ONE);
     }
 
     /**
@@ -127,6 +483,9 @@ public class Fraction implements Comparable<Fraction> {
      */
     @Override
     public String toString() {
+        if (!isSmall()) {
+            return toBigString();
+        }
         if (denominator == 1) {
             // 自然数
             return String.valueOf(numerator);
@@ -135,8 +494,8 @@ public class Fraction implements Comparable<Fraction> {
             return numerator + "/" + denominator;
         } else {
             // 带分数
-            int wholeNumber = numerator / denominator;
-            int remainingNumerator = Math.abs(numerator % denominator);
+            long wholeNumber = numerator / denominator;
+            long remainingNumerator = Math.abs(numerator % denominator);
             if (remainingNumerator == 0) {
                 return String.valueOf(wholeNumber);
             } else {
@@ -145,6 +504,24 @@ public class Fraction implements Comparable<Fraction> {
         }
     }
 
+    /**
+     * BigInteger 表示的字符串形式，格式与快速路径一致
+     */
+    private String toBigString() {
+        if (bigDenominator.equals(BigInteger.ONE)) {
+            return bigNumerator.toString();
+        } else if (bigNumerator.abs().compareTo(bigDenominator) < 0) {
+            return bigNumerator + "/" + bigDenominator;
+        } else {
+            BigInteger[] parts = bigNumerator.divideAndRemainder(bigDenominator);
+            if (parts[1].signum() == 0) {
+                return parts[0].toString();
+            } else {
+                return parts[0] + "'" + parts[1].abs() + "/" + bigDenominator;
+            }
+        }
+    }
+
     /**
      * 判断两个分数是否相等
      */
@@ -154,12 +531,22 @@ public class Fraction implements Comparable<Fraction> {
         if (obj == null || getClass() != obj.getClass()) return false;
 
         Fraction other = (Fraction) obj;
-        return this.numerator == other.numerator && this.denominator == other.denominator;
+        if (isSmall() != other.isSmall()) {
+            // 表示唯一：同一数值不会既是 long 又是 BigInteger
+            return false;
+        }
+        if (isSmall()) {
+            return this.numerator == other.numerator && this.denominator == other.denominator;
+        }
+        return bigNumerator.equals(other.bigNumerator) && bigDenominator.equals(other.bigDenominator);
     }
 
     @Override
     public int hashCode() {
-        return 31 * numerator + denominator;
+        if (isSmall()) {
+            return 31 * Long.hashCode(numerator) + Long.hashCode(denominator);
+        }
+        return 31 * bigNumerator.hashCode() + bigDenominator.hashCode();
     }
 
     /**
@@ -167,41 +554,110 @@ public class Fraction implements Comparable<Fraction> {
      */
     @Override
     public int compareTo(Fraction other) {
-        long thisVal = (long) this.numerator * other.denominator;
-        long otherVal = (long) other.numerator * this.denominator;
-        return Long.compare(thisVal, otherVal);
+        if (isSmall() && other.isSmall()) {
+            try {
+                long thisVal = Math.multiplyExact(this.numerator, other.denominator);
+                long otherVal = Math.multiplyExact(other.numerator, this.denominator);
+                return Long.compare(thisVal, otherVal);
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 BigInteger
+            }
+        }
+        BigInteger thisVal = bigNumerator().multiply(other.bigDenominator());
+        BigInteger otherVal = other.bigNumerator().multiply(bigDenominator());
+        return thisVal.compareTo(otherVal);
     }
 
     /**
      * 从字符串解析分数
+     * 支持整数 a、真分数 a/b 和带分数 a'b/c，直接按字符扫描，不使用正则表达式
      */
     public static Fraction parse(String str) {
         str = str.trim();
+        int length = str.length();
+
+        int firstEnd = digitsEnd(str, 0);
+        if (firstEnd > 0) {
+            // 整数模式
+            if (firstEnd == length) {
+                return of(str, 0, firstEnd, -1, -1);
+            }
 
-        // 整数模式
-        if (str.matches("\\d+")) {
-            return new Fraction(Integer.parseInt(str));
+            char separator = str.charAt(firstEnd);
+            int secondEnd = digitsEnd(str, firstEnd + 1);
+            if (secondEnd > firstEnd + 1) {
+                // 真分数模式: a/b
+                if (separator == '/' && secondEnd == length) {
+                    return of(str, 0, firstEnd, firstEnd + 1, secondEnd);
+                }
+
+                // 带分数模式: a'b/c
+                if (separator == '\'' && secondEnd < length && str.charAt(secondEnd) == '/') {
+                    int thirdEnd = digitsEnd(str, secondEnd + 1);
+                    if (thirdEnd > secondEnd + 1 && thirdEnd == length) {
+                        return mixedOf(str, firstEnd, secondEnd, thirdEnd);
+                    }
+                }
+            }
         }
 
-        // 真分数模式: a/b
-        Pattern properFractionPattern = Pattern.compile("(\\d+)/(\\d+)");
-        Matcher properFractionMatcher = properFractionPattern.matcher(str);
-        if (properFractionMatcher.matches()) {
-            int numerator = Integer.parseInt(properFractionMatcher.group(1));
-            int denominator = Integer.parseInt(properFractionMatcher.group(2));
-            return new Fraction(numerator, denominator);
+        throw new IllegalArgumentException("无效的分数格式: " + str);
+    }
+
+    /**
+     * 由 [0, wholeEnd)、(wholeEnd, numeratorEnd)、(numeratorEnd, denominatorEnd) 三段数字构造带分数
+     */
+    private static Fraction mixedOf(String str, int wholeEnd, int numeratorEnd, int denominatorEnd) {
+        long wholeNumber = parseDigits(str, 0, wholeEnd);
+        long numerator = parseDigits(str, wholeEnd + 1, numeratorEnd);
+        long denominator = parseDigits(str, numeratorEnd + 1, denominatorEnd);
+        if (wholeNumber >= 0 && numerator >= 0 && denominator >= 0) {
+            return valueOf(wholeNumber, numerator, denominator);
         }
+        BigInteger bigDenominator = new BigInteger(str.substring(numeratorEnd + 1, denominatorEnd));
+        BigInteger bigNumerator = new BigInteger(str.substring(0, wholeEnd)).multiply(bigDenominator)
+                .add(new BigInteger(str.substring(wholeEnd + 1, numeratorEnd)));
+        return new Fraction(bigNumerator, bigDenominator);
+    }
 
-        // 带分数模式: a'b/c
-        Pattern mixedNumberPattern = Pattern.compile("(\\d+)'(\\d+)/(\\d+)");
-        Matcher mixedNumberMatcher = mixedNumberPattern.matcher(str);
-        if (mixedNumberMatcher.matches()) {
-            int wholeNumber = Integer.parseInt(mixedNumberMatcher.group(1));
-            int numerator = Integer.parseInt(mixedNumberMatcher.group(2));
-            int denominator = Integer.parseInt(mixedNumberMatcher.group(3));
-            return new Fraction(wholeNumber, numerator, denominator);
+    /**
+     * 由分子 [numeratorStart, numeratorEnd) 和分母 [denominatorStart, denominatorEnd) 两段数字构造分数，
+     * 分母下标为 -1 时表示整数；数字较短时走 long 快速路径
+     */
+    private static Fraction of(String str, int numeratorStart, int numeratorEnd, int denominatorStart, int denominatorEnd) {
+        long numerator = parseDigits(str, numeratorStart, numeratorEnd);
+        long denominator = denominatorStart < 0 ? 1 : parseDigits(str, denominatorStart, denominatorEnd);
+        if (numerator >= 0 && denominator >= 0) {
+            return valueOf(numerator, denominator);
         }
+        BigInteger bigNumerator = new BigInteger(str.substring(numeratorStart, numeratorEnd));
+        BigInteger bigDenominator = denominatorStart < 0
+                ? BigInteger.ONE : new BigInteger(str.substring(denominatorStart, denominatorEnd));
+        return new Fraction(bigNumerator, bigDenominator);
+    }
 
-        throw new IllegalArgumentException("无效的分数格式: " + str);
+    /**
+     * 返回从 from 开始的连续 ASCII 数字的结束位置
+     */
+    private static int digitsEnd(String str, int from) {
+        int i = from;
+        while (i < str.length() && str.charAt(i) >= '0' && str.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 将 [from, to) 的数字转换为 long；超过 18 位（不一定能放进 long）时返回 -1
+     */
+    private static long parseDigits(String str, int from, int to) {
+        if (to - from > 18) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            result = result * 10 + (str.charAt(i) - '0');
+        }
+        return result;
     }
 }
@@ -0,0 +1,78 @@
+package com.zhang.model;
+
+/**
+ * 按数值范围预先计算的最大公约数查找表
+ * 题目中的分母受 -r 限制，约分时反复计算的都是同一批小整数对的最大公约数。
+ * 调用 prepare(range) 后，两个操作数都不超过表边长时直接查表，否则退回欧几里得算法。
+ * 默认不建表，所有计算都走欧几里得算法。
+ */
+public final class GcdTable {
+    // 表边长上限，对应约 2MB 的 char 数组
+    private static final int MAX_LIMIT = 1024;
+    // 建表时的最小边长，保证小范围下两个分母相乘的结果也能命中
+    private static final int MIN_LIMIT = 256;
+
+    private static volatile GcdTable table = new GcdTable(0);
+
+    private final int limit; // 表中操作数的最大值
+    private final int side; // 每行的元素个数，即 limit + 1
+    private final char[] values; // values[a * side + b] = gcd(a, b)
+
+    private GcdTable(int limit) {
+        this.limit = limit;
+        this.side = limit + 1;
+        this.values = new char[side * side];
+
+        // gcd(a, b) = gcd(b mod a, a)，b mod a < a，因此按行递推时所需的行已经算好
+        for (int b = 0; b <= limit; b++) {
+            values[b] = (char) b;
+        }
+        for (int a = 1; a <= limit; a++) {
+            int row = a * side;
+            for (int b = 0; b <= limit; b++) {
+                values[row + b] = values[(b % a) * side + a];
+            }
+        }
+    }
+
+    /**
+     * 按数值范围建立查找表：边长取 range²，并限制在 [256, 1024] 之间
+     * 查找表只增不减
+     */
+    public static synchronized void prepare(int range) {
+        long wanted = Math.min(Math.max((long) range * range, MIN_LIMIT), MAX_LIMIT);
+        if (wanted > table.limit) {
+            table = new GcdTable((int) wanted);
+        }
+    }
+
+    /**
+     * 当前查找表覆盖的最大操作数，未建表时为 0
+     */
+    public static int limit() {
+        return table.limit;
+    }
+
+    /**
+     * 计算两个非负整数的最大公约数，命中查找表时不做除法
+     */
+    public static long gcd(long a, long b) {
+        GcdTable t = table;
+        if ((a | b) >= 0 && a <= t.limit && b <= t.limit) {
+            return t.values[(int) a * t.side + (int) b];
+        }
+        return euclid(a, b);
+    }
+
+    /**
+     * 欧几里得算法
+     */
+    public static long euclid(long a, long b) {
+        while (b != 0) {
+            long temp = b;
+            b = a % b;
+            a = temp;
+        }
+        return a;
+    }
+}
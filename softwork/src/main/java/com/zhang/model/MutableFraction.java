@@ -0,0 +1,285 @@
+package com.zhang.model;
+
+/**
+ * 可复用的可变分数累加器
+ * 用于表达式求值等热点路径：运算结果直接写回自身，long 快速路径上不分配任何对象，
+ * 只在需要对外返回结果时通过 toFraction() 转换为不可变的 Fraction。
+ * 运算溢出时退回到 Fraction 的 BigInteger 实现，数值重新落回 long 范围后自动恢复快速路径。
+ * 非线程安全。
+ */
+public final class MutableFraction implements Comparable<MutableFraction> {
+    // 每个线程复用的寄存器组，供求值器按深度或栈位置取用
+    private static final ThreadLocal<MutableFraction[]> REGISTERS =
+            ThreadLocal.withInitial(() -> newRegisters(16));
+
+    private long numerator; // 分子（快速路径，已约分）
+    private long denominator = 1; // 分母（快速路径，始终为正）
+    private Fraction overflow; // 溢出后的精确值，快速路径时为 null
+
+    public MutableFraction() {
+    }
+
+    public MutableFraction(Fraction value) {
+        set(value);
+    }
+
+    /**
+     * 获取当前线程至少包含 size 个元素的寄存器组
+     * 扩容时保留原有元素，因此已取得的寄存器在扩容后仍然有效；
+     * 同一线程内的求值不能嵌套使用寄存器组
+     */
+    public static MutableFraction[] registers(int size) {
+        MutableFraction[] registers = REGISTERS.get();
+        if (registers.length < size) {
+            MutableFraction[] grown = new MutableFraction[Math.max(size, registers.length * 2)];
+            System.arraycopy(registers, 0, grown, 0, registers.length);
+            for (int i = registers.length; i < grown.length; i++) {
+                grown[i] = new MutableFraction();
+            }
+            registers = grown;
+            REGISTERS.set(registers);
+        }
+        return registers;
+    }
+
+    private static MutableFraction[] newRegisters(int size) {
+        MutableFraction[] registers = new MutableFraction[size];
+        for (int i = 0; i < size; i++) {
+            registers[i] = new MutableFraction();
+        }
+        return registers;
+    }
+
+    /**
+     * 设置为指定分数的值
+     */
+    public MutableFraction set(Fraction value) {
+        if (value.fitsInLong()) {
+            this.numerator = value.getNumerator();
+            this.denominator = value.getDenominator();
+            this.overflow = null;
+        } else {
+            this.overflow = value;
+        }
+        return this;
+    }
+
+    /**
+     * 设置为另一个累加器的值
+     */
+    public MutableFraction set(MutableFraction other) {
+        this.numerator = other.numerator;
+        this.denominator = other.denominator;
+        this.overflow = other.overflow;
+        return this;
+    }
+
+    /**
+     * 设置为 numerator/denominator，会进行约分
+     */
+    public MutableFraction set(long numerator, long denominator) {
+        if (denominator == 0) {
+            throw new ArithmeticException("除数不能为零");
+        }
+        if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE) {
+            return set(new Fraction(numerator, denominator));
+        }
+        if (denominator < 0) {
+            numerator = -numerator;
+            denominator = -denominator;
+        }
+        long gcd = Fraction.gcd(Math.abs(numerator), denominator);
+        this.numerator = numerator / gcd;
+        this.denominator = denominator / gcd;
+        this.overflow = null;
+        return this;
+    }
+
+    private boolean isSmall() {
+        return overflow == null;
+    }
+
+    /**
+     * 加法，结果写回自身
+     */
+    public MutableFraction add(MutableFraction other) {
+        if (isSmall() && other.isSmall()) {
+            try {
+                addExact(other.numerator, other.denominator);
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 Fraction 的 BigInteger 实现
+            }
+        }
+        return set(toFraction().add(other.toFraction()));
+    }
+
+    /**
+     * 减法，结果写回自身
+     */
+    public MutableFraction subtract(MutableFraction other) {
+        if (isSmall() && other.isSmall()) {
+            try {
+                addExact(-other.numerator, other.denominator);
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 Fraction 的 BigInteger 实现
+            }
+        }
+        return set(toFraction().subtract(other.toFraction()));
+    }
+
+    /**
+     * 乘法，结果写回自身
+     */
+    public MutableFraction multiply(MutableFraction other) {
+        if (isSmall() && other.isSmall()) {
+            try {
+                multiplyExact(other.numerator, other.denominator);
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 Fraction 的 BigInteger 实现
+            }
+        }
+        return set(toFraction().multiply(other.toFraction()));
+    }
+
+    /**
+     * 除法，结果写回自身
+     */
+    public MutableFraction divide(MutableFraction other) {
+        if (other.isZero()) {
+            throw new ArithmeticException("除数不能为零");
+        }
+        if (isSmall() && other.isSmall()) {
+            try {
+                long reciprocalNumerator = other.numerator < 0 ? -other.denominator : other.denominator;
+                multiplyExact(reciprocalNumerator, Math.abs(other.numerator));
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 Fraction 的 BigInteger 实现
+            }
+        }
+        return set(toFraction().divide(other.toFraction()));
+    }
+
+    /**
+     * 按运算符进行运算，结果写回自身
+     */
+    public MutableFraction apply(Operator operator, MutableFraction other) {
+        switch (operator) {
+            case ADD:
+                return add(other);
+            case SUBTRACT:
+                return subtract(other);
+            case MULTIPLY:
+                return multiply(other);
+            case DIVIDE:
+                return divide(other);
+            default:
+                throw new IllegalStateException("未知运算符: " + operator);
+        }
+    }
+
+    /**
+     * 快速路径加法，算法与 Fraction 相同；全部计算完成后才写回字段，溢出时自身保持不变
+     */
+    private void addExact(long n2, long d2) {
+        long n1 = numerator;
+        long d1 = denominator;
+        long g = Fraction.gcd(d1, d2);
+        if (g == 1) {
+            long n = Fraction.checked(Math.addExact(Math.multiplyExact(n1, d2), Math.multiplyExact(n2, d1)));
+            long d = Fraction.checked(Math.multiplyExact(d1, d2));
+            store(n, n == 0 ? 1 : d);
+            return;
+        }
+
+        long s = d1 / g;
+        long t = Fraction.checked(Math.addExact(Math.multiplyExact(n1, d2 / g), Math.multiplyExact(n2, s)));
+        if (t == 0) {
+            store(0, 1);
+            return;
+        }
+        long g2 = Fraction.gcd(Math.abs(t), g);
+        store(t / g2, Fraction.checked(Math.multiplyExact(s, d2 / g2)));
+    }
+
+    /**
+     * 快速路径乘法，先交叉约分再相乘
+     */
+    private void multiplyExact(long n2, long d2) {
+        long n1 = numerator;
+        long d1 = denominator;
+        if (n1 == 0 || n2 == 0) {
+            store(0, 1);
+            return;
+        }
+        long g1 = Fraction.gcd(Math.abs(n1), d2);
+        long g2 = Fraction.gcd(Math.abs(n2), d1);
+        long n = Fraction.checked(Math.multiplyExact(n1 / g1, n2 / g2));
+        long d = Fraction.checked(Math.multiplyExact(d1 / g2, d2 / g1));
+        store(n, d);
+    }
+
+    private void store(long numerator, long denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    /**
+     * 判断是否为负
+     */
+    public boolean isNegative() {
+        return isSmall() ? numerator < 0 : overflow.isNegative();
+    }
+
+    /**
+     * 判断是否为零
+     */
+    public boolean isZero() {
+        return isSmall() && numerator == 0;
+    }
+
+    /**
+     * 判断是否为真分数（分子绝对值小于分母）
+     */
+    public boolean isProperFraction() {
+        return isSmall() ? Math.abs(numerator) < denominator : overflow.isProperFraction();
+    }
+
+    /**
+     * 判断是否为整数（分母为1）
+     */
+    public boolean isWholeNumber() {
+        return isSmall() ? denominator == 1 : overflow.isWholeNumber();
+    }
+
+    /**
+     * 比较大小
+     */
+    @Override
+    public int compareTo(MutableFraction other) {
+        if (isSmall() && other.isSmall()) {
+            try {
+                return Long.compare(Math.multiplyExact(numerator, other.denominator),
+                        Math.multiplyExact(other.numerator, denominator));
+            } catch (ArithmeticException e) {
+                // 溢出，回退到 Fraction 的 BigInteger 实现
+            }
+        }
+        return toFraction().compareTo(other.toFraction());
+    }
+
+    /**
+     * 转换为不可变的 Fraction
+     */
+    public Fraction toFraction() {
+        return isSmall() ? Fraction.ofReduced(numerator, denominator) : overflow;
+    }
+
+    @Override
+    public String toString() {
+        return toFraction().toString();
+    }
+}
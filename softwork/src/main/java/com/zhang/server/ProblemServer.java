@@ -0,0 +1,304 @@
+package com.zhang.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zhang.generator.ProblemGenerator;
+import com.zhang.grader.Grader;
+import com.zhang.grader.ProblemNumberRuns;
+import com.zhang.model.Problem;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本机 HTTP 服务：常驻进程中复用生成器和评分器，避免每次请求都启动 JVM
+ * 只监听回环地址。接口：
+ *   GET  /generate?n=<数量>&r=<范围>  生成题目，响应为题目文件内容、一个空行、答案文件内容
+ *   POST /grade                       请求体为题目文件内容、一个空行、答案文件内容，响应为 Grade.txt 格式的报告
+ * 两个接口的文本格式相同，生成的结果可以直接提交评分。文本均为 UTF-8。
+ * 请求由有界线程池处理（JDK 17 没有虚拟线程），队列满时由接收连接的线程自己处理，起到背压作用；
+ * 同时最多 maxConcurrent 个请求在生成或评分，其余请求等待 ADMISSION_TIMEOUT_MILLIS 后返回 503。
+ * 请求体超过 maxBodySize 时返回 413，题目数量超过 maxProblems 时返回 400。
+ */
+public class ProblemServer implements Closeable {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_MAX_PROBLEMS = 10000;
+    public static final int DEFAULT_MAX_BODY_SIZE = 16 << 20; // 16MB
+    private static final int THREADS_PER_PERMIT = 2; // 每个计算名额对应的线程数，多出的线程读写请求或等待名额
+    private static final int QUEUE_CAPACITY = 64; // 线程池中排队等待的请求数
+    private static final long ADMISSION_TIMEOUT_MILLIS = 1000; // 等待计算名额的最长时间
+    private static final int GENERATORS_PER_THREAD = 16; // 每个线程缓存的生成器个数（按范围区分）
+    private static final long MAX_DISCARD = 1 << 20; // 拒绝过大的请求体之前最多读取并丢弃的字节数
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    final Semaphore permits; // 计算名额
+    private final Grader grader;
+    private final boolean constructive;
+    private final int maxProblems;
+    private final int maxBodySize;
+    // 生成器非线程安全，每个线程按范围各缓存几个，请求之间只清空查重记录
+    private final ThreadLocal<Map<Integer, ProblemGenerator>> generators = ThreadLocal.withInitial(
+            () -> new LinkedHashMap<>(GENERATORS_PER_THREAD, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, ProblemGenerator> eldest) {
+                    return size() > GENERATORS_PER_THREAD;
+                }
+            });
+
+    /**
+     * @param port 端口，0 表示由系统分配（见 getPort）
+     * @param maxConcurrent 同时生成或评分的最大请求数
+     */
+    public ProblemServer(int port, int maxConcurrent, Grader grader) throws IOException {
+        this(port, maxConcurrent, grader, false, DEFAULT_MAX_PROBLEMS, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * @param constructive 生成题目时是否使用构造式生成，见 ExpressionGenerator
+     * @param maxProblems 一次最多生成的题目数
+     * @param maxBodySize 评分请求体的最大字节数
+     */
+    public ProblemServer(int port, int maxConcurrent, Grader grader, boolean constructive,
+                         int maxProblems, int maxBodySize) throws IOException {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive");
+        }
+        if (maxProblems <= 0 || maxBodySize <= 0) {
+            throw new IllegalArgumentException("Request limits must be positive");
+        }
+        this.grader = grader;
+        this.constructive = constructive;
+        this.maxProblems = maxProblems;
+        this.maxBodySize = maxBodySize;
+        this.permits = new Semaphore(maxConcurrent);
+
+        int threads = maxConcurrent * THREADS_PER_PERMIT;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), task -> {
+                    Thread thread = new Thread(task, "problem-server-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/generate", exchange -> handle(exchange, "GET", this::generate));
+        server.createContext("/grade", exchange -> handle(exchange, "POST", this::grade));
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * 实际监听的端口
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 停止接收新请求，等待正在处理的请求最多一秒后关闭
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 检查方法、取得计算名额后执行请求，并把错误转换为对应的状态码
+     */
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                respond(exchange, 405, "只支持 " + method + " 请求");
+                return;
+            }
+            if (!permits.tryAcquire(ADMISSION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                respond(exchange, 503, "服务器繁忙，请稍后重试");
+                return;
+            }
+            try {
+                respond(exchange, 200, handler.handle(exchange));
+            } finally {
+                permits.release();
+            }
+        } catch (RequestException e) {
+            respond(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "服务器正在关闭");
+        } catch (RuntimeException e) {
+            respond(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 生成题目，与生成模式写出的 Exercises.txt 和 Answers.txt 格式相同
+     */
+    private String generate(HttpExchange exchange) throws RequestException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int count = intParameter(query, "n");
+        int range = intParameter(query, "r");
+        if (count <= 0 || range <= 0) {
+            throw new RequestException(400, "n 和 r 必须是正整数");
+        }
+        if (count > maxProblems) {
+            throw new RequestException(400, "一次最多生成 " + maxProblems + " 道题目");
+        }
+
+        ProblemGenerator generator = generators.get().computeIfAbsent(range,
+                r -> new ProblemGenerator(r, constructive));
+        generator.reset(count);
+        StringBuilder exercises = new StringBuilder();
+        StringBuilder answers = new StringBuilder();
+        Iterator<Problem> problems = generator.iterator();
+        int generated = 0;
+        while (generated < count && problems.hasNext()) {
+            Problem problem = problems.next();
+            generated++;
+            exercises.append(generated).append(". ").append(problem.getExpression()).append(" = \n");
+            answers.append(generated).append(". ").append(problem.getAnswer()).append('\n');
+        }
+        exchange.getResponseHeaders().set("X-Problem-Count", Integer.toString(generated));
+        return exercises.append('\n').append(answers).toString();
+    }
+
+    /**
+     * 评分，响应与 Grade.txt 格式相同
+     */
+    private String grade(HttpExchange exchange) throws IOException, RequestException {
+        String body = new String(readBody(exchange), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        int separator = body.indexOf("\n\n");
+        if (separator < 0) {
+            throw new RequestException(400, "请求体应为题目、一个空行和答案");
+        }
+
+        ProblemNumberRuns correctProblems = new ProblemNumberRuns();
+        ProblemNumberRuns wrongProblems = new ProblemNumberRuns();
+        try (BufferedReader exercises = new BufferedReader(new StringReader(body.substring(0, separator + 1)));
+             BufferedReader userAnswers = new BufferedReader(new StringReader(body.substring(separator + 2)))) {
+            grader.grade(exercises, userAnswers, correctProblems, wrongProblems);
+        }
+        StringBuilder report = new StringBuilder();
+        Grader.appendReport(report, correctProblems, wrongProblems);
+        return report.toString();
+    }
+
+    /**
+     * 读取请求体，超过 maxBodySize 时不再保存
+     */
+    private byte[] readBody(HttpExchange exchange) throws IOException, RequestException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            if (length != null && Long.parseLong(length.trim()) > maxBodySize) {
+                throw tooLarge(in, buffer);
+            }
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                // 没有 Content-Length（分块传输）时边读边检查
+                if (body.size() + read > maxBodySize) {
+                    throw tooLarge(in, buffer);
+                }
+                body.write(buffer, 0, read);
+            }
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * 读取并丢弃请求体的剩余部分，再返回 413
+     * 客户端还在发送时就关闭连接，它会收到连接重置而不是响应；剩余部分超过 MAX_DISCARD 时不再读取
+     */
+    private RequestException tooLarge(InputStream in, byte[] buffer) throws IOException {
+        long discarded = 0;
+        int read;
+        while (discarded < MAX_DISCARD && (read = in.read(buffer)) >= 0) {
+            discarded += read;
+        }
+        return new RequestException(413, "请求体不能超过 " + maxBodySize + " 字节");
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> query, String name) throws RequestException {
+        String value = query.get(name);
+        if (value == null) {
+            throw new RequestException(400, "缺少参数 " + name);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "参数 " + name + " 不是整数: " + value);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = (status == 200 ? text : text + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        String handle(HttpExchange exchange) throws IOException, RequestException;
+    }
+
+    /**
+     * 请求无效，status 为返回的状态码
+     */
+    private static final class RequestException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -5,6 +5,18 @@ public class CommandLineParser {
     private int range = 0;
     private String exerciseFile = null;
     private String answerFile = null;
+    private int threads = 1;
+    private boolean threadsSpecified = false;
+    private boolean constructive = false;
+    private Long seed = null;
+    private String toBinaryFile = null;
+    private String fromBinaryFile = null;
+    private String problems = null;
+    private boolean answerKey = true;
+    private Integer evaluationCacheSize = null;
+    private String answers = null;
+    private String reportDirectory = "Grades";
+    private Integer servePort = null;
 
     public CommandLineParser(String[] args) {
         for (int i = 0; i < args.length; i++) {
@@ -40,6 +52,85 @@ public class CommandLineParser {
                         throw new IllegalArgumentException("Missing value for -a parameter");
                     }
                     break;
+                case "--threads":
+                    if (i + 1 < args.length) {
+                        threads = Integer.parseInt(args[++i]);
+                        if (threads <= 0) {
+                            throw new IllegalArgumentException("Thread count must be positive");
+                        }
+                        threadsSpecified = true;
+                    } else {
+                        throw new IllegalArgumentException("Missing value for --threads parameter");
+                    }
+                    break;
+                case "--seed":
+                    if (i + 1 < args.length) {
+                        seed = Long.parseLong(args[++i]);
+                    } else {
+                        throw new IllegalArgumentException("Missing value for --seed parameter");
+                    }
+                    break;
+                case "--to-binary":
+                    if (i + 1 < args.length) {
+                        toBinaryFile = args[++i];
+                    } else {
+                        throw new IllegalArgumentException("Missing value for --to-binary parameter");
+                    }
+                    break;
+                case "--from-binary":
+                    if (i + 1 < args.length) {
+                        fromBinaryFile = args[++i];
+                    } else {
+                        throw new IllegalArgumentException("Missing value for --from-binary parameter");
+                    }
+                    break;
+                case "--problems":
+                    if (i + 1 < args.length) {
+                        problems = args[++i];
+                    } else {
+                        throw new IllegalArgumentException("Missing value for --problems parameter");
+                    }
+                    break;
+                case "--answers":
+                    if (i + 1 < args.length) {
+                        answers = args[++i];
+                    } else {
+                        throw new IllegalArgumentException("Missing value for --answers parameter");
+                    }
+                    break;
+                case "--report-dir":
+                    if (i + 1 < args.length) {
+                        reportDirectory = args[++i];
+                    } else {
+                        throw new IllegalArgumentException("Missing value for --report-dir parameter");
+                    }
+                    break;
+                case "--serve":
+                    if (i + 1 < args.length) {
+                        servePort = Integer.parseInt(args[++i]);
+                        if (servePort < 0 || servePort > 65535) {
+                            throw new IllegalArgumentException("Port must be between 0 and 65535");
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Missing value for --serve parameter");
+                    }
+                    break;
+                case "--eval-cache":
+                    if (i + 1 < args.length) {
+                        evaluationCacheSize = Integer.parseInt(args[++i]);
+                        if (evaluationCacheSize < 0) {
+                            throw new IllegalArgumentException("Cache size must not be negative");
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Missing value for --eval-cache parameter");
+                    }
+                    break;
+                case "--no-answer-key":
+                    answerKey = false;
+                    break;
+                case "--constructive":
+                    constructive = true;
+                    break;
                 default:
                     throw new IllegalArgumentException("Unknown parameter: " + args[i]);
             }
@@ -50,6 +141,10 @@ public class CommandLineParser {
         return number > 0 && range > 0;
     }
 
+    public boolean hasExerciseFileAndAnswers() {
+        return exerciseFile != null && answers != null;
+    }
+
     public boolean hasExerciseAndAnswerFiles() {
         return exerciseFile != null && answerFile != null;
     }
@@ -69,4 +164,73 @@ public class CommandLineParser {
     public String getAnswerFile() {
         return answerFile;
     }
+
+    /**
+     * 是否指定了 --threads；未指定时 getThreads 返回 1，各模式可以改用自己的默认值
+     */
+    public boolean hasThreads() {
+        return threadsSpecified;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean isConstructive() {
+        return constructive;
+    }
+
+    public boolean hasSeed() {
+        return seed != null;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getToBinaryFile() {
+        return toBinaryFile;
+    }
+
+    public String getFromBinaryFile() {
+        return fromBinaryFile;
+    }
+
+    public boolean useAnswerKey() {
+        return answerKey;
+    }
+
+    public boolean hasEvaluationCacheSize() {
+        return evaluationCacheSize != null;
+    }
+
+    public int getEvaluationCacheSize() {
+        return evaluationCacheSize;
+    }
+
+    /**
+     * 只评判的题号列表，如 "3,17,100-200"；未指定时为 null
+     */
+    public String getProblems() {
+        return problems;
+    }
+
+    /**
+     * 批量评分的答案目录或通配符路径，如 answers/*.txt
+     */
+    public String getAnswers() {
+        return answers;
+    }
+
+    public String getReportDirectory() {
+        return reportDirectory;
+    }
+
+    public boolean hasServePort() {
+        return servePort != null;
+    }
+
+    public int getServePort() {
+        return servePort;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.zhang.utils;
+
+import com.zhang.model.Fraction;
+import com.zhang.model.MutableFraction;
+import com.zhang.model.Operator;
+
+import java.util.Arrays;
+
+/**
+ * 边解析边求值的表达式计算器
+ * 直接在词法分析器产生的标记流上运行 Shunting-Yard 算法：数值栈由可复用的 MutableFraction 组成，
+ * 运算符栈是 int 数组，不构建 Expression 树，也不生成 RPN 列表。
+ * 只需要结果时使用本类；需要 Expression 对象时使用 ExpressionParser。
+ * 实例非线程安全，静态方法 evaluate(String) 为每个线程复用一个实例。
+ */
+public class ExpressionEvaluator {
+    private static final ThreadLocal<ExpressionEvaluator> EVALUATORS = ThreadLocal.withInitial(ExpressionEvaluator::new);
+    private static final Operator[] OPERATORS = Operator.values();
+    private static final int LEFT_PAREN = -1; // 运算符栈中表示左括号
+
+    private final ExpressionLexer lexer = new ExpressionLexer("");
+    private final MutableFraction result = new MutableFraction();
+    private int[] operators = new int[16]; // 运算符的 ordinal，或 LEFT_PAREN
+    private int[] positions = new int[16]; // 运算符在表达式中的位置，用于错误信息
+
+    /**
+     * 计算表达式字符串的值，语法和错误信息与 ExpressionParser.parse 相同
+     */
+    public static Fraction evaluate(String expressionStr) {
+        return EVALUATORS.get().evaluateExpression(expressionStr);
+    }
+
+    /**
+     * 计算表达式字符串的值
+     * 与先解析再求值不同，除零等运算错误可能先于其后的语法错误被发现
+     */
+    public Fraction evaluateExpression(String expressionStr) {
+        evaluateInto(expressionStr, result);
+        return result.toFraction();
+    }
+
+    /**
+     * 计算表达式字符串的值并写入 target，long 快速路径上不创建对象
+     */
+    public void evaluateInto(String expressionStr, MutableFraction target) {
+        ExpressionLexer tokens = lexer.reset(expressionStr);
+        MutableFraction[] values = MutableFraction.registers(16);
+        int valueTop = 0;
+        int operatorTop = 0;
+
+        ExpressionLexer.TokenType type;
+        while ((type = tokens.next()) != null) {
+            switch (type) {
+                case NUMBER:
+                case FRACTION:
+                case MIXED_NUMBER:
+                    if (valueTop == values.length) {
+                        values = MutableFraction.registers(valueTop + 1);
+                    }
+                    if (tokens.hasLongValue()) {
+                        values[valueTop++].set(tokens.numerator(), tokens.denominator());
+                    } else {
+                        values[valueTop++].set(tokens.value());
+                    }
+                    break;
+                case OPERATOR:
+                    // 根据优先级先计算栈顶优先级不低于当前运算符的运算
+                    int precedence = tokens.operator().getPrecedence();
+                    while (operatorTop > 0 && operators[operatorTop - 1] != LEFT_PAREN &&
+                            OPERATORS[operators[operatorTop - 1]].getPrecedence() >= precedence) {
+                        operatorTop--;
+                        valueTop = reduce(values, valueTop, operatorTop);
+                    }
+                    operatorTop = push(operatorTop, tokens.operator().ordinal(), tokens.position());
+                    break;
+                case LEFT_PAREN:
+                    operatorTop = push(operatorTop, LEFT_PAREN, tokens.position());
+                    break;
+                case RIGHT_PAREN:
+                    // 计算到匹配的 "(" 为止
+                    boolean foundOpenParen = false;
+                    while (operatorTop > 0) {
+                        operatorTop--;
+                        if (operators[operatorTop] == LEFT_PAREN) {
+                            foundOpenParen = true;
+                            break;
+                        }
+                        valueTop = reduce(values, valueTop, operatorTop);
+                    }
+
+                    if (!foundOpenParen) {
+                        throw new IllegalArgumentException("括号不匹配 (位置 " + tokens.position() + ")");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("无效标记: " + tokens.text() + " (位置 " + tokens.position() + ")");
+            }
+        }
+
+        // 处理剩余的运算符
+        while (operatorTop > 0) {
+            operatorTop--;
+            if (operators[operatorTop] == LEFT_PAREN) {
+                throw new IllegalArgumentException("括号不匹配 (位置 " + positions[operatorTop] + ")");
+            }
+            valueTop = reduce(values, valueTop, operatorTop);
+        }
+
+        if (valueTop != 1) {
+            throw new IllegalArgumentException("无效表达式: 操作数过多");
+        }
+
+        target.set(values[0]);
+    }
+
+    /**
+     * 用第 index 个运算符计算数值栈顶的两个数，结果写回左操作数，返回新的栈顶位置
+     */
+    private int reduce(MutableFraction[] values, int valueTop, int index) {
+        Operator operator = OPERATORS[operators[index]];
+        if (valueTop < 2) {
+            throw new IllegalArgumentException("无效表达式: 运算符 " + operator.getSymbol()
+                    + " 缺少操作数 (位置 " + positions[index] + ")");
+        }
+        values[valueTop - 2].apply(operator, values[valueTop - 1]);
+        return valueTop - 1;
+    }
+
+    private int push(int operatorTop, int operator, int position) {
+        if (operatorTop == operators.length) {
+            operators = Arrays.copyOf(operators, operatorTop * 2);
+            positions = Arrays.copyOf(positions, operatorTop * 2);
+        }
+        operators[operatorTop] = operator;
+        positions[operatorTop] = position;
+        return operatorTop + 1;
+    }
+}
@@ -0,0 +1,302 @@
+package com.zhang.utils;
+
+import com.zhang.model.Fraction;
+import com.zhang.model.Operator;
+
+/**
+ * 表达式词法分析器
+ * 逐字符扫描表达式字符串，一次一个地产生带类型和位置的标记，不使用正则表达式。
+ * 用法：
+ * <pre>
+ *     ExpressionLexer lexer = new ExpressionLexer(str);
+ *     ExpressionLexer.TokenType type;
+ *     while ((type = lexer.next()) != null) { ... lexer.value() / lexer.operator() / lexer.position() ... }
+ * </pre>
+ */
+public class ExpressionLexer {
+
+    /**
+     * 标记类型
+     */
+    public enum TokenType {
+        NUMBER,        // 自然数，如 3
+        FRACTION,      // 分数，如 3/4
+        MIXED_NUMBER,  // 带分数，如 2'3/4
+        OPERATOR,      // + - × ÷
+        LEFT_PAREN,    // (
+        RIGHT_PAREN    // )
+    }
+
+    // long 一定能容纳的十进制位数，超过时改用 Fraction.parse 走 BigInteger
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private String source;
+    private int cursor; // 下一个待扫描字符的位置
+
+    // 当前标记
+    private TokenType type;
+    private int start;
+    private int end;
+    private Operator operator;
+    private Fraction value; // 数字标记的值，分子分母能放进 long 时在首次访问时才创建
+    private boolean longValue; // 数字标记的值是否由 numerator/denominator 表示
+    private long numerator; // 数字标记未约分的分子
+    private long denominator; // 数字标记未约分的分母
+
+    public ExpressionLexer(String source) {
+        this.source = source;
+    }
+
+    /**
+     * 重置为扫描新的字符串，便于复用同一个词法分析器
+     */
+    public ExpressionLexer reset(String source) {
+        this.source = source;
+        this.cursor = 0;
+        this.type = null;
+        this.start = 0;
+        this.end = 0;
+        return this;
+    }
+
+    /**
+     * 扫描下一个标记
+     * @return 标记类型，已到达末尾时返回 null
+     */
+    public TokenType next() {
+        int length = source.length();
+        while (cursor < length && Character.isWhitespace(source.charAt(cursor))) {
+            cursor++;
+        }
+        operator = null;
+        value = null;
+        longValue = false;
+        start = cursor;
+        if (cursor >= length) {
+            type = null;
+            end = cursor;
+            return null;
+        }
+
+        char c = source.charAt(cursor);
+        Operator op = toOperator(c);
+        if (op != null) {
+            cursor++;
+            operator = op;
+            return finish(TokenType.OPERATOR);
+        }
+        if (c == '(') {
+            cursor++;
+            return finish(TokenType.LEFT_PAREN);
+        }
+        if (c == ')') {
+            cursor++;
+            return finish(TokenType.RIGHT_PAREN);
+        }
+        if (isDigit(c)) {
+            return scanNumber();
+        }
+
+        throw invalidToken();
+    }
+
+    /**
+     * 扫描数字：a、a/b 或 a'b/c
+     */
+    private TokenType scanNumber() {
+        int firstEnd = skipDigits(cursor);
+        long first = digits(cursor, firstEnd);
+
+        if (firstEnd < source.length() && source.charAt(firstEnd) == '/') {
+            int secondEnd = skipDigits(firstEnd + 1);
+            if (secondEnd == firstEnd + 1) {
+                throw invalidToken();
+            }
+            checkDelimiter(secondEnd);
+            cursor = secondEnd;
+            if (first < 0 || secondEnd - firstEnd - 1 > MAX_LONG_DIGITS) {
+                value = Fraction.parse(source.substring(start, cursor));
+            } else {
+                setLongValue(first, digits(firstEnd + 1, secondEnd));
+            }
+            return finish(TokenType.FRACTION);
+        }
+
+        if (firstEnd < source.length() && source.charAt(firstEnd) == '\'') {
+            int secondEnd = skipDigits(firstEnd + 1);
+            if (secondEnd == firstEnd + 1 || secondEnd >= source.length() || source.charAt(secondEnd) != '/') {
+                throw invalidToken();
+            }
+            int thirdEnd = skipDigits(secondEnd + 1);
+            if (thirdEnd == secondEnd + 1) {
+                throw invalidToken();
+            }
+            checkDelimiter(thirdEnd);
+            cursor = thirdEnd;
+            long second = digits(firstEnd + 1, secondEnd);
+            long third = digits(secondEnd + 1, thirdEnd);
+            long whole = first < 0 || second < 0 || third < 0 ? -1 : mixedNumerator(first, second, third);
+            if (whole < 0) {
+                value = Fraction.parse(source.substring(start, cursor));
+            } else {
+                setLongValue(whole, third);
+            }
+            return finish(TokenType.MIXED_NUMBER);
+        }
+
+        checkDelimiter(firstEnd);
+        cursor = firstEnd;
+        if (first < 0) {
+            value = Fraction.parse(source.substring(start, cursor));
+        } else {
+            setLongValue(first, 1);
+        }
+        return finish(TokenType.NUMBER);
+    }
+
+    private void setLongValue(long numerator, long denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.longValue = true;
+    }
+
+    /**
+     * 计算带分数的分子 whole * denominator + numerator，溢出时返回 -1
+     */
+    private static long mixedNumerator(long whole, long numerator, long denominator) {
+        try {
+            return Math.addExact(Math.multiplyExact(whole, denominator), numerator);
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    private TokenType finish(TokenType tokenType) {
+        end = cursor;
+        type = tokenType;
+        return tokenType;
+    }
+
+    private int skipDigits(int from) {
+        int i = from;
+        while (i < source.length() && isDigit(source.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 将 [from, to) 范围内的数字转换为 long，位数过多时返回 -1
+     */
+    private long digits(int from, int to) {
+        if (to - from > MAX_LONG_DIGITS) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            result = result * 10 + (source.charAt(i) - '0');
+        }
+        return result;
+    }
+
+    /**
+     * 数字之后必须是空白、运算符、括号或末尾，否则整段视为无效标记
+     */
+    private void checkDelimiter(int index) {
+        if (index < source.length() && !isDelimiter(source.charAt(index))) {
+            throw invalidToken();
+        }
+    }
+
+    /**
+     * 构造无效标记异常，标记文本从当前标记起始位置延伸到下一个分隔符
+     */
+    private IllegalArgumentException invalidToken() {
+        int i = start;
+        do {
+            i++;
+        } while (i < source.length() && !isDelimiter(source.charAt(i)));
+        return new IllegalArgumentException("无效标记: " + source.substring(start, i) + " (位置 " + start + ")");
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDelimiter(char c) {
+        return Character.isWhitespace(c) || c == '(' || c == ')' || toOperator(c) != null;
+    }
+
+    /**
+     * 获取字符对应的运算符，不是运算符时返回 null
+     */
+    private static Operator toOperator(char c) {
+        switch (c) {
+            case '+': return Operator.ADD;
+            case '-': return Operator.SUBTRACT;
+            case '×': return Operator.MULTIPLY;
+            case '÷': return Operator.DIVIDE;
+            default: return null;
+        }
+    }
+
+    /**
+     * 当前标记类型
+     */
+    public TokenType type() {
+        return type;
+    }
+
+    /**
+     * 当前标记在源字符串中的起始位置
+     */
+    public int position() {
+        return start;
+    }
+
+    /**
+     * 当前标记的原始文本
+     */
+    public String text() {
+        return source.substring(start, end);
+    }
+
+    /**
+     * 当前运算符标记对应的运算符
+     */
+    public Operator operator() {
+        return operator;
+    }
+
+    /**
+     * 当前数字标记的值
+     * @throws ArithmeticException 分母为零时
+     */
+    public Fraction value() {
+        if (value == null && longValue) {
+            value = Fraction.valueOf(numerator, denominator);
+        }
+        return value;
+    }
+
+    /**
+     * 当前数字标记的值是否可以通过 numerator()/denominator() 以 long 形式读取（不创建 Fraction）
+     */
+    public boolean hasLongValue() {
+        return longValue;
+    }
+
+    /**
+     * 当前数字标记未约分的分子，仅当 hasLongValue() 为 true 时有效
+     */
+    public long numerator() {
+        return numerator;
+    }
+
+    /**
+     * 当前数字标记未约分的分母（可能为零），仅当 hasLongValue() 为 true 时有效
+     */
+    public long denominator() {
+        return denominator;
+    }
+}
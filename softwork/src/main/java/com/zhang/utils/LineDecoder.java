@@ -0,0 +1,133 @@
+package com.zhang.utils;
+
+/**
+ * 题目行与答案行的解码工具
+ * 按字符扫描 "N. " 题号前缀和 " = " 结尾，不使用正则表达式。
+ * 空白字符的判定与正则表达式的 \s 一致；与正则表达式的 $ 一样，行尾可以多一个行结束符（如 \u2028）。
+ */
+public class LineDecoder {
+
+    private LineDecoder() {
+    }
+
+    /**
+     * 从行首的 "N." 中提取题号，没有题号时返回 0
+     */
+    public static int problemNumber(String line) {
+        int digitsEnd = digitsEnd(line, 0);
+        if (digitsEnd == 0 || digitsEnd >= line.length() || line.charAt(digitsEnd) != '.') {
+            return 0;
+        }
+        if (digitsEnd > 9) {
+            // 位数较多时交给 Integer.parseInt，超出 int 范围时抛出 NumberFormatException
+            return Integer.parseInt(line.substring(0, digitsEnd));
+        }
+        int number = 0;
+        for (int i = 0; i < digitsEnd; i++) {
+            number = number * 10 + (line.charAt(i) - '0');
+        }
+        return number;
+    }
+
+    /**
+     * 提取题目行中的表达式：去掉 "N. " 前缀和结尾的 "="
+     */
+    public static String expression(String line) {
+        int start = prefixEnd(line);
+        String expression = (start > 0 ? line.substring(start) : line).trim();
+
+        // 去掉结尾的 "=" 及其两侧空白，保留其后的行结束符
+        int length = expression.length();
+        int terminator = length - finalTerminatorLength(expression);
+        int end = terminator;
+        while (end > 0 && isSpace(expression.charAt(end - 1))) {
+            end--;
+        }
+        if (end > 0 && expression.charAt(end - 1) == '=') {
+            end--;
+            while (end > 0 && isSpace(expression.charAt(end - 1))) {
+                end--;
+            }
+            expression = (expression.substring(0, end) + expression.substring(terminator)).trim();
+        }
+        return expression;
+    }
+
+    /**
+     * 提取答案行 "N. 答案" 中的答案文本（已去除首尾空白），格式不符时返回 null
+     */
+    public static String answer(String line) {
+        int digitsEnd = digitsEnd(line, 0);
+        int end = line.length() - finalTerminatorLength(line);
+        // 至少需要：数字、"."、一个空白、一个答案字符
+        if (digitsEnd == 0 || digitsEnd + 2 >= end || line.charAt(digitsEnd) != '.') {
+            return null;
+        }
+        // 答案本身不能包含行结束符，行结束符只能出现在前面的空白中
+        int start = digitsEnd + 2;
+        for (int i = end - 1; i >= start; i--) {
+            if (isLineTerminator(line.charAt(i))) {
+                start = i + 1;
+                break;
+            }
+        }
+        if (start >= end) {
+            return null;
+        }
+        for (int i = digitsEnd + 1; i < start; i++) {
+            if (!isSpace(line.charAt(i))) {
+                return null;
+            }
+        }
+        return line.substring(start, end).trim();
+    }
+
+    /**
+     * 返回 "N." 加至少一个空白的前缀的结束位置，没有这样的前缀时返回 0
+     */
+    private static int prefixEnd(String line) {
+        int digitsEnd = digitsEnd(line, 0);
+        if (digitsEnd == 0 || digitsEnd + 1 >= line.length() || line.charAt(digitsEnd) != '.'
+                || !isSpace(line.charAt(digitsEnd + 1))) {
+            return 0;
+        }
+        int end = digitsEnd + 1;
+        while (end < line.length() && isSpace(line.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static int digitsEnd(String line, int from) {
+        int i = from;
+        while (i < line.length() && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 末尾行结束符的长度（"\r\n" 为 2），即正则表达式的 $ 可以匹配在它之前的部分
+     */
+    private static int finalTerminatorLength(String line) {
+        int length = line.length();
+        if (length >= 2 && line.charAt(length - 2) == '\r' && line.charAt(length - 1) == '\n') {
+            return 2;
+        }
+        return length > 0 && isLineTerminator(line.charAt(length - 1)) ? 1 : 0;
+    }
+
+    /**
+     * 与正则表达式（未启用 UNIX_LINES）相同的行结束符集合，"." 不匹配这些字符
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * 与正则表达式 \s 相同的空白字符集合
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
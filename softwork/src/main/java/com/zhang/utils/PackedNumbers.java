@@ -0,0 +1,87 @@
+package com.zhang.utils;
+
+import com.zhang.model.Fraction;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * 二进制文件中整数和分数的紧凑编码
+ * 非负整数按变长整数（LEB128）存放，每字节 7 位；分子先做 ZigZag 编码，绝对值小的负数也只占很少的字节。
+ * 超出 long 范围的分数按 BigInteger 的字节形式存放（变长长度加字节）。
+ */
+public final class PackedNumbers {
+    /**
+     * 一个变长整数最多占用的字节数
+     */
+    public static final int MAX_VARINT_SIZE = 10;
+
+    private PackedNumbers() {
+    }
+
+    public static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+
+    /**
+     * 编码 value 最多需要的字节数
+     * @param big 是否按 BigInteger 形式编码
+     */
+    public static int maxSize(Fraction value, boolean big) {
+        if (!big) {
+            return 2 * MAX_VARINT_SIZE;
+        }
+        return 2 * MAX_VARINT_SIZE + value.getBigNumerator().bitLength() / 8 + value.getBigDenominator().bitLength() / 8 + 2;
+    }
+
+    /**
+     * 写出分数；big 为 false 时分数必须在 long 范围内
+     */
+    public static void putFraction(ByteBuffer buffer, Fraction value, boolean big) {
+        if (big) {
+            putBigInteger(buffer, value.getBigNumerator());
+            putBigInteger(buffer, value.getBigDenominator());
+        } else {
+            long numerator = value.getNumerator();
+            putVarint(buffer, (numerator << 1) ^ (numerator >> 63));
+            putVarint(buffer, value.getDenominator());
+        }
+    }
+
+    public static Fraction getFraction(ByteBuffer buffer, boolean big) {
+        if (big) {
+            return new Fraction(getBigInteger(buffer), getBigInteger(buffer));
+        }
+        long zigzag = getVarint(buffer);
+        long numerator = (zigzag >>> 1) ^ -(zigzag & 1);
+        return Fraction.valueOf(numerator, getVarint(buffer));
+    }
+
+    private static void putBigInteger(ByteBuffer buffer, BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        putVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static BigInteger getBigInteger(ByteBuffer buffer) {
+        byte[] bytes = new byte[(int) getVarint(buffer)];
+        buffer.get(bytes);
+        return new BigInteger(bytes);
+    }
+}
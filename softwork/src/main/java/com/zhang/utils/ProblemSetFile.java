@@ -0,0 +1,399 @@
+package com.zhang.utils;
+
+import com.zhang.model.Expression;
+import com.zhang.model.ExpressionProgram;
+import com.zhang.model.Fraction;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 二进制题目集文件
+ * 每道题目保存题号、编译后的表达式（ExpressionProgram 的操作码和常量）以及答案，读取时不需要再解析文本。
+ * 文件结构（整数均为大端序）：
+ * <pre>
+ * 文件头   int 魔数 "ZPS1"，int 版本，long 题目数，long 索引位置
+ * 题目记录 连续存放，每条记录的格式见 Writer.add
+ * 索引     每道题目一个 long，为该题记录在文件中的位置；定长，按下标直接定位第 i 道题目
+ * </pre>
+ * 记录中的题号、长度和分数按 PackedNumbers 的紧凑编码存放。
+ */
+public final class ProblemSetFile {
+    private static final int MAGIC = 0x5A505331; // "ZPS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    // 记录的标志位
+    private static final int HAS_ANSWER = 1; // 记录包含答案
+    private static final int BIG_NUMBERS = 2; // 常量和答案按 BigInteger 存放
+
+    private ProblemSetFile() {
+    }
+
+    /**
+     * 判断文件是否为二进制题目集（按魔数判断）
+     */
+    public static boolean isProblemSet(String file) throws IOException {
+        Path path = Paths.get(file);
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // 读满 4 个字节
+            }
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * 把文本形式的题目文件和答案文件转换为二进制题目集
+     * 两个文件按行配对，与 Grader 相同，只转换到较短的文件结束为止；无法解析的答案按没有答案保存
+     * 先写临时文件，全部转换成功后再替换目标文件；转换失败时不会留下只含部分题目的题目集
+     * @return 转换的题目数
+     * @throws IllegalArgumentException 题目无法解析时
+     */
+    public static long fromText(String exerciseFile, String answerFile, String problemSetFile) throws IOException {
+        Path target = Paths.get(problemSetFile).toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+        try {
+            long count = convert(exerciseFile, answerFile, temporary);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static long convert(String exerciseFile, String answerFile, Path problemSetFile) throws IOException {
+        try (BufferedReader exercises = new BufferedReader(new FileReader(exerciseFile, StandardCharsets.UTF_8));
+             BufferedReader answers = new BufferedReader(new FileReader(answerFile, StandardCharsets.UTF_8));
+             Writer writer = new Writer(problemSetFile)) {
+            String exercise;
+            String answer;
+            while ((exercise = exercises.readLine()) != null && (answer = answers.readLine()) != null) {
+                ExpressionProgram program;
+                try {
+                    program = ExpressionProgram.compile(ExpressionParser.parse(LineDecoder.expression(exercise)));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("题目 " + (writer.size() + 1) + " 无法解析: " + e.getMessage(), e);
+                }
+                writer.add(LineDecoder.problemNumber(exercise), program, parseAnswer(answer));
+            }
+            return writer.size();
+        }
+    }
+
+    private static Fraction parseAnswer(String line) {
+        String answer = LineDecoder.answer(line);
+        try {
+            return answer != null ? Fraction.parse(answer) : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把二进制题目集转换为文本形式的题目文件和答案文件，格式与 ProblemGenerator 的输出相同
+     * @return 转换的题目数
+     */
+    public static long toText(String problemSetFile, String exerciseFile, String answerFile) throws IOException {
+        try (Reader reader = open(problemSetFile);
+             Utf8FileWriter exerciseWriter = new Utf8FileWriter(exerciseFile);
+             Utf8FileWriter answerWriter = new Utf8FileWriter(answerFile)) {
+            for (long i = 0; i < reader.size(); i++) {
+                Entry entry = reader.get(i);
+                exerciseWriter.print(entry.getProblemNumber()).print(". ")
+                        .print(entry.getProgram().toExpression()).println(" = ");
+                answerWriter.print(entry.getProblemNumber()).print(". ");
+                if (entry.getAnswer() != null) {
+                    answerWriter.print(entry.getAnswer());
+                }
+                answerWriter.println();
+            }
+            return reader.size();
+        }
+    }
+
+    public static Reader open(String file) throws IOException {
+        return new Reader(Paths.get(file));
+    }
+
+    /**
+     * 一道题目：题号、编译后的表达式和答案（没有答案时为 null）
+     */
+    public static final class Entry {
+        private final int problemNumber;
+        private final ExpressionProgram program;
+        private final Fraction answer;
+
+        Entry(int problemNumber, ExpressionProgram program, Fraction answer) {
+            this.problemNumber = problemNumber;
+            this.program = program;
+            this.answer = answer;
+        }
+
+        public int getProblemNumber() {
+            return problemNumber;
+        }
+
+        public ExpressionProgram getProgram() {
+            return program;
+        }
+
+        public Fraction getAnswer() {
+            return answer;
+        }
+    }
+
+    /**
+     * 顺序写出二进制题目集，关闭时写出索引和文件头
+     * 非线程安全。
+     */
+    public static final class Writer implements Closeable {
+        private static final int BUFFER_SIZE = 1 << 20; // 1MB
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long written = HEADER_SIZE; // 已写入文件的字节数（含文件头）
+        private long[] offsets = new long[1024];
+        private int size = 0;
+
+        public Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE);
+        }
+
+        /**
+         * 写出一道题目
+         * 记录格式：变长题号，标志字节，变长操作码长度，操作码，各常量，答案（有答案时）
+         * @param answer 答案，没有答案时为 null
+         */
+        public void add(int problemNumber, Expression expression, Fraction answer) throws IOException {
+            add(problemNumber, ExpressionProgram.compile(expression), answer);
+        }
+
+        public void add(int problemNumber, ExpressionProgram program, Fraction answer) throws IOException {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = written + buffer.position();
+
+            byte[] code = program.getCode();
+            int constants = program.getConstantCount();
+            boolean big = answer != null && !answer.fitsInLong();
+            for (int i = 0; i < constants && !big; i++) {
+                big = !program.getConstant(i).fitsInLong();
+            }
+
+            ensure(2 * PackedNumbers.MAX_VARINT_SIZE + 1 + code.length);
+            PackedNumbers.putVarint(buffer, problemNumber & 0xFFFFFFFFL);
+            buffer.put((byte) ((answer != null ? HAS_ANSWER : 0) | (big ? BIG_NUMBERS : 0)));
+            PackedNumbers.putVarint(buffer, code.length);
+            buffer.put(code);
+            for (int i = 0; i < constants; i++) {
+                writeFraction(program.getConstant(i), big);
+            }
+            if (answer != null) {
+                writeFraction(answer, big);
+            }
+        }
+
+        public long size() {
+            return size;
+        }
+
+        private void writeFraction(Fraction value, boolean big) throws IOException {
+            ensure(PackedNumbers.maxSize(value, big));
+            PackedNumbers.putFraction(buffer, value, big);
+        }
+
+        /**
+         * 保证缓冲区至少还有 bytes 个字节的空间
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+                if (buffer.capacity() < bytes) {
+                    throw new IllegalArgumentException("记录太大: " + bytes + " 字节");
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            written += buffer.position();
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                drain();
+                long indexOffset = written;
+                for (int i = 0; i < size; i++) {
+                    ensure(Long.BYTES);
+                    buffer.putLong(offsets[i]);
+                }
+                drain();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(indexOffset).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 内存映射读取二进制题目集，按下标随机访问任意一道题目
+     * 文件按 REGION_SIZE 分段映射，因此不受单个映射 2GB 的限制；跨越分段边界的记录复制后再解码。
+     * 读取不修改共享状态，可在线程间共享。
+     */
+    public static final class Reader implements Closeable {
+        static final int REGION_SIZE = 1 << 30; // 1GB
+
+        private final FileChannel channel;
+        private final MappedByteBuffer[] regions;
+        private final int regionSize;
+        private final long size;
+        private final long indexOffset;
+
+        Reader(Path file) throws IOException {
+            this(file, REGION_SIZE);
+        }
+
+        /**
+         * @param regionSize 每段映射的字节数，测试时用较小的值覆盖跨段读取
+         */
+        Reader(Path file, int regionSize) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.regionSize = regionSize;
+            try {
+                long length = channel.size();
+                long count = (length + regionSize - 1) / regionSize;
+                if (count > Integer.MAX_VALUE) {
+                    throw new IOException("题目集文件太大: " + file);
+                }
+                this.regions = new MappedByteBuffer[(int) count];
+                for (int i = 0; i < regions.length; i++) {
+                    long position = (long) i * regionSize;
+                    regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(regionSize, length - position));
+                }
+
+                if (length < HEADER_SIZE) {
+                    throw new IOException("不是题目集文件: " + file);
+                }
+                ByteBuffer header = slice(0, HEADER_SIZE);
+                if (header.getInt(0) != MAGIC) {
+                    throw new IOException("不是题目集文件: " + file);
+                }
+                if (header.getInt(4) != VERSION) {
+                    throw new IOException("不支持的题目集版本: " + header.getInt(4));
+                }
+                this.size = header.getLong(8);
+                this.indexOffset = header.getLong(16);
+                if (size < 0 || size > (length - HEADER_SIZE) / Long.BYTES || indexOffset < HEADER_SIZE
+                        || indexOffset + size * Long.BYTES != length) {
+                    throw new IOException("题目集文件已损坏: " + file);
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public long size() {
+            return size;
+        }
+
+        /**
+         * 第 index 道题目（从 0 开始）
+         */
+        public Entry get(long index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("题目下标超出范围: " + index);
+            }
+            long offset = offset(index);
+            long end = index + 1 < size ? offset(index + 1) : indexOffset;
+            if (offset < HEADER_SIZE || end < offset || end > indexOffset || end - offset > Integer.MAX_VALUE) {
+                throw new IllegalStateException("题目集索引已损坏: " + index);
+            }
+            ByteBuffer record = slice(offset, (int) (end - offset));
+
+            int problemNumber = (int) PackedNumbers.getVarint(record);
+            int flags = record.get();
+            boolean big = (flags & BIG_NUMBERS) != 0;
+            byte[] code = new byte[(int) PackedNumbers.getVarint(record)];
+            record.get(code);
+
+            int pushes = 0;
+            for (byte op : code) {
+                if (op == ExpressionProgram.PUSH) {
+                    pushes++;
+                }
+            }
+            Fraction[] constants = new Fraction[pushes];
+            for (int i = 0; i < pushes; i++) {
+                constants[i] = PackedNumbers.getFraction(record, big);
+            }
+            Fraction answer = (flags & HAS_ANSWER) != 0 ? PackedNumbers.getFraction(record, big) : null;
+            return new Entry(problemNumber, ExpressionProgram.of(code, constants), answer);
+        }
+
+        /**
+         * 第 index 道题目的记录位置
+         */
+        private long offset(long index) {
+            return slice(indexOffset + index * Long.BYTES, Long.BYTES).getLong(0);
+        }
+
+        /**
+         * 文件中 [position, position + length) 的字节
+         * 位于同一分段时直接共享映射，否则逐段复制到新的缓冲区
+         */
+        private ByteBuffer slice(long position, int length) {
+            int region = (int) (position / regionSize);
+            int start = (int) (position % regionSize);
+            if ((long) start + length <= regions[region].limit()) {
+                return regions[region].slice(start, length);
+            }
+            byte[] bytes = new byte[length];
+            for (int copied = 0; copied < length; region++, start = 0) {
+                int count = Math.min(length - copied, regions[region].limit() - start);
+                regions[region].get(start, bytes, copied, count);
+                copied += count;
+            }
+            return ByteBuffer.wrap(bytes);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
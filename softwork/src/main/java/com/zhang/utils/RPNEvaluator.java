@@ -2,11 +2,11 @@ package com.zhang.utils;
 
 import com.zhang.model.Expression;
 import com.zhang.model.Fraction;
+import com.zhang.model.MutableFraction;
 import com.zhang.model.Operator;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * 使用逆波兰表示法（RPN）计算表达式的工具类。
@@ -43,50 +43,33 @@ public class RPNEvaluator {
 
     /**
      * 使用 RPN 计算表达式的值。
+     * 栈由线程内复用的可变累加器组成，运算过程中不创建中间 Fraction。
      */
     public static Fraction evaluateRPN(List<Object> rpnTokens) {
-        Stack<Fraction> stack = new Stack<>();
+        MutableFraction[] stack = MutableFraction.registers(rpnTokens.size());
+        int top = 0;
 
         for (Object token : rpnTokens) {
             if (token instanceof Fraction) {
-                stack.push((Fraction) token);
+                stack[top++].set((Fraction) token);
             } else if (token instanceof Operator) {
                 Operator op = (Operator) token;
-
-                // 按逆序弹出操作数（先弹出右操作数，再弹出左操作数）
-                Fraction right = stack.pop();
-                Fraction left = stack.pop();
-
-                // 进行运算
-                Fraction result;
-                switch (op) {
-                    case ADD:
-                        result = left.add(right);
-                        break;
-                    case SUBTRACT:
-                        result = left.subtract(right);
-                        break;
-                    case MULTIPLY:
-                        result = left.multiply(right);
-                        break;
-                    case DIVIDE:
-                        result = left.divide(right);
-                        break;
-                    default:
-                        throw new IllegalStateException("未知运算符: " + op);
+                if (top < 2) {
+                    throw new IllegalStateException("无效的 RPN 表达式: " + rpnTokens);
                 }
 
-                // 将计算结果压入栈中
-                stack.push(result);
+                // 右操作数在栈顶，结果写回左操作数所在位置
+                MutableFraction right = stack[--top];
+                stack[top - 1].apply(op, right);
             }
         }
 
         // 计算完成后，栈中应只剩下最终结果
-        if (stack.size() != 1) {
+        if (top != 1) {
             throw new IllegalStateException("无效的 RPN 表达式: " + rpnTokens);
         }
 
-        return stack.pop();
+        return stack[0].toFraction();
     }
 
     /**
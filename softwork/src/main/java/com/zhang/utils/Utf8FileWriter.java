@@ -0,0 +1,201 @@
+package com.zhang.utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于 FileChannel 的 UTF-8 文本输出
+ * 字符直接编码为 UTF-8 写入一个可复用的大容量直接缓冲区，缓冲区满时一次性写入文件；
+ * 不依赖平台默认字符集，不经过 Writer/OutputStream 的多层缓冲，整数直接按位写出，不创建字符串。
+ * 换行符与 PrintWriter.println 相同，使用 System.lineSeparator()。
+ * 非法的 UTF-16 代理字符按 '?' 写出，与 String.getBytes 一致。
+ * 非线程安全。
+ */
+public class Utf8FileWriter implements Appendable, Flushable, Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20; // 1MB
+    private static final int MIN_BUFFER_SIZE = 32; // 至少能放下一个 long 的十进制表示
+    private static final int MAX_BYTES_PER_CHAR = 3; // 一个 UTF-16 字符最多编码为 3 个字节（代理对共 4 个字节）
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean syncOnClose;
+    private final byte[] digits = new byte[20]; // long 的十进制表示最多 20 个字符
+
+    /**
+     * 创建或覆盖文件
+     */
+    public Utf8FileWriter(String file) throws IOException {
+        this(Paths.get(file), false);
+    }
+
+    /**
+     * @param syncOnClose 为 true 时在关闭前把文件内容强制写入磁盘
+     */
+    public Utf8FileWriter(Path file, boolean syncOnClose) throws IOException {
+        this(file, syncOnClose, DEFAULT_BUFFER_SIZE);
+    }
+
+    public Utf8FileWriter(Path file, boolean syncOnClose, int bufferSize) throws IOException {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE + " bytes");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.syncOnClose = syncOnClose;
+    }
+
+    public Utf8FileWriter print(String text) throws IOException {
+        append(text, 0, text.length());
+        return this;
+    }
+
+    /**
+     * 写出整数的十进制表示
+     */
+    public Utf8FileWriter print(long value) throws IOException {
+        if (buffer.remaining() < digits.length) {
+            drain();
+        }
+        if (value == Long.MIN_VALUE) {
+            return print(Long.toString(value));
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, start, digits.length - start);
+        return this;
+    }
+
+    public Utf8FileWriter print(Object value) throws IOException {
+        return print(String.valueOf(value));
+    }
+
+    public Utf8FileWriter println() throws IOException {
+        return print(LINE_SEPARATOR);
+    }
+
+    public Utf8FileWriter println(String text) throws IOException {
+        return print(text).println();
+    }
+
+    @Override
+    public Utf8FileWriter append(CharSequence text) throws IOException {
+        CharSequence value = text == null ? "null" : text;
+        return append(value, 0, value.length());
+    }
+
+    @Override
+    public Utf8FileWriter append(CharSequence text, int start, int end) throws IOException {
+        CharSequence value = text == null ? "null" : text;
+        int i = start;
+        while (i < end) {
+            if (buffer.remaining() < 2 * MAX_BYTES_PER_CHAR) {
+                drain();
+            }
+            // 本轮最多编码的字符数保证不会超出缓冲区；代理对需要两个字符的位置写 4 个字节，同样不会超出
+            int limit = Math.min(end, i + buffer.remaining() / MAX_BYTES_PER_CHAR - 1);
+            i = encode(value, i, limit, end);
+        }
+        return this;
+    }
+
+    @Override
+    public Utf8FileWriter append(char c) throws IOException {
+        if (buffer.remaining() < MAX_BYTES_PER_CHAR) {
+            drain();
+        }
+        if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?'); // 单独的代理字符无法编码
+        } else {
+            encodeChar(c);
+        }
+        return this;
+    }
+
+    /**
+     * 编码 [from, limit) 范围内的字符，返回下一个待编码字符的位置
+     * 代理对的高位字符恰好位于 limit - 1 时，仍会读取 limit 处的低位字符（只要不超过 end）
+     */
+    private int encode(CharSequence text, int from, int limit, int end) {
+        ByteBuffer out = buffer;
+        int i = from;
+        while (i < limit) {
+            char c = text.charAt(i++);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (!Character.isSurrogate(c)) {
+                encodeChar(c);
+            } else if (Character.isHighSurrogate(c) && i < end && Character.isLowSurrogate(text.charAt(i))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(i++));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                out.put((byte) '?');
+            }
+        }
+        return i;
+    }
+
+    private void encodeChar(char c) {
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+
+    /**
+     * 把缓冲区中的内容写入文件
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 把缓冲区中的内容写入文件（不强制写入磁盘）
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            drain();
+            if (syncOnClose) {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
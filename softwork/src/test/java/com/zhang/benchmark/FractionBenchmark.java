@@ -0,0 +1,82 @@
+package com.zhang.benchmark;
+
+import com.zhang.generator.ExpressionGenerator;
+import com.zhang.model.Fraction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fraction 四则运算与解析的基准测试
+ * 操作数由 ExpressionGenerator 按 -r 范围随机生成，与真实出题时的数值分布一致
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FractionBenchmark {
+    private static final int SIZE = 1024; // 操作数池大小（2 的幂，便于取模）
+
+    @Param({"10", "100", "1000"})
+    private int range;
+
+    private Fraction[] left;
+    private Fraction[] right;
+    private String[] texts;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExpressionGenerator generator = new ExpressionGenerator(range);
+        left = new Fraction[SIZE];
+        right = new Fraction[SIZE];
+        texts = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            left[i] = generator.generateFraction();
+            // 右操作数避免为零，保证除法可用
+            Fraction r;
+            do {
+                r = i % 2 == 0 ? generator.generateNaturalNumber() : generator.generateFraction();
+            } while (r.isZero());
+            right[i] = r;
+            texts[i] = left[i].toString();
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (SIZE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public Fraction add() {
+        int i = next();
+        return left[i].add(right[i]);
+    }
+
+    @Benchmark
+    public Fraction subtract() {
+        int i = next();
+        return left[i].subtract(right[i]);
+    }
+
+    @Benchmark
+    public Fraction multiply() {
+        int i = next();
+        return left[i].multiply(right[i]);
+    }
+
+    @Benchmark
+    public Fraction divide() {
+        int i = next();
+        return left[i].divide(right[i]);
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) {
+        bh.consume(Fraction.parse(texts[next()]));
+    }
+}
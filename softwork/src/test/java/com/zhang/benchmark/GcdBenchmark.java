@@ -0,0 +1,58 @@
+package com.zhang.benchmark;
+
+import com.zhang.model.GcdTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最大公约数查找表与欧几里得算法的对比
+ * 操作数取自 [0, range²]，即题目中分母及其两两乘积的范围
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GcdBenchmark {
+    private static final int SIZE = 1024; // 操作数池大小（2 的幂，便于取模）
+
+    @Param({"10", "30", "100"})
+    private int range;
+
+    private long[] left;
+    private long[] right;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GcdTable.prepare(range);
+        Random random = new Random(42);
+        int bound = Math.min(range * range, GcdTable.limit()) + 1;
+        left = new long[SIZE];
+        right = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            left[i] = random.nextInt(bound);
+            right[i] = random.nextInt(bound - 1) + 1;
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (SIZE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public long euclid() {
+        int i = next();
+        return GcdTable.euclid(left[i], right[i]);
+    }
+
+    @Benchmark
+    public long table() {
+        int i = next();
+        return GcdTable.gcd(left[i], right[i]);
+    }
+}
@@ -0,0 +1,60 @@
+package com.zhang.benchmark;
+
+import com.zhang.generator.ExpressionGenerator;
+import com.zhang.generator.ProblemGenerator;
+import com.zhang.model.Expression;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表达式与题目生成的基准测试
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @State(Scope.Thread)
+    public static class ExpressionState {
+        @Param({"10", "100", "1000"})
+        int range;
+
+        @Param({"false", "true"})
+        boolean constructive;
+
+        ExpressionGenerator generator;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            generator = new ExpressionGenerator(range, constructive);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ProblemState {
+        @Param({"10", "100", "1000"})
+        int range;
+
+        @Param({"100", "10000"})
+        int count;
+    }
+
+    @Benchmark
+    public Expression generateExpression(ExpressionState state) {
+        return state.generator.generateExpression(3);
+    }
+
+    /**
+     * 每次调用都新建 ProblemGenerator，使查重集合从空开始，结果包含写文件的开销
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void generateProblems(ProblemState state) throws IOException {
+        new ProblemGenerator(state.range).generateProblems(state.count);
+    }
+}
@@ -0,0 +1,67 @@
+package com.zhang.benchmark;
+
+import com.zhang.generator.ProblemGenerator;
+import com.zhang.grader.Grader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 评分的基准测试
+ * 先用 ProblemGenerator 生成题目和标准答案，再对同一组文件反复评分
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraderBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int range;
+
+    @Param({"100", "10000"})
+    private int count;
+
+    @Param({"false", "true"})
+    private boolean answerKey; // 是否使用标准答案缓存；启用时第一次评分后都按缓存评分
+
+    private Path directory;
+    private String exerciseFile;
+    private String answerFile;
+    private Grader grader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        new ProblemGenerator(range).generateProblems(count);
+
+        // 复制到临时目录，避免其他基准测试覆盖输入文件
+        directory = Files.createTempDirectory("grader-bench");
+        Path exercises = directory.resolve("Exercises.txt");
+        Path answers = directory.resolve("Answers.txt");
+        Files.copy(Paths.get("Exercises.txt"), exercises, StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(Paths.get("Answers.txt"), answers, StandardCopyOption.REPLACE_EXISTING);
+        exerciseFile = exercises.toString();
+        answerFile = answers.toString();
+        grader = new Grader(answerKey);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Paths.get(exerciseFile));
+        Files.deleteIfExists(Paths.get(answerFile));
+        Files.deleteIfExists(Paths.get(exerciseFile + ".key"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void grade() throws IOException {
+        grader.grade(exerciseFile, answerFile);
+    }
+}
@@ -0,0 +1,93 @@
+package com.zhang.benchmark;
+
+import com.zhang.generator.ExpressionGenerator;
+import com.zhang.model.Expression;
+import com.zhang.model.ExpressionProgram;
+import com.zhang.model.Fraction;
+import com.zhang.utils.ExpressionEvaluator;
+import com.zhang.utils.ExpressionParser;
+import com.zhang.utils.RPNEvaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表达式解析与 RPN 计算的基准测试
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    private static final int SIZE = 1024; // 表达式池大小（2 的幂，便于取模）
+
+    @Param({"10", "100", "1000"})
+    private int range;
+
+    private String[] texts;
+    private Expression[] expressions;
+    private ExpressionProgram[] programs;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExpressionGenerator generator = new ExpressionGenerator(range);
+        texts = new String[SIZE];
+        expressions = new Expression[SIZE];
+        programs = new ExpressionProgram[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            expressions[i] = generator.generateExpression(3);
+            texts[i] = expressions[i].toString();
+            programs[i] = ExpressionProgram.compile(expressions[i]);
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (SIZE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public Expression parse() {
+        return ExpressionParser.parse(texts[next()]);
+    }
+
+    @Benchmark
+    public List<Object> toRPN() {
+        return RPNEvaluator.toRPN(expressions[next()]);
+    }
+
+    @Benchmark
+    public Fraction evaluateTree() {
+        return expressions[next()].evaluate();
+    }
+
+    @Benchmark
+    public Fraction parseAndEvaluate() {
+        Expression expr = ExpressionParser.parse(texts[next()]);
+        return RPNEvaluator.evaluateRPN(RPNEvaluator.toRPN(expr));
+    }
+
+    @Benchmark
+    public Fraction evaluateFused() {
+        return ExpressionEvaluator.evaluate(texts[next()]);
+    }
+
+    @Benchmark
+    public Fraction evaluateProgram() {
+        return programs[next()].evaluate();
+    }
+
+    @Benchmark
+    public ExpressionProgram compile() {
+        return ExpressionProgram.compile(expressions[next()]);
+    }
+
+    @Benchmark
+    public Fraction toRPNAndEvaluate() {
+        return RPNEvaluator.evaluateRPN(RPNEvaluator.toRPN(expressions[next()]));
+    }
+}
@@ -0,0 +1,66 @@
+package com.zhang.generator;
+
+import com.zhang.model.Expression;
+import com.zhang.model.ExpressionProgram;
+import com.zhang.utils.ExpressionParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionGeneratorTest {
+
+    @Test
+    void testGeneratedExpressionsAreValid() {
+        ExpressionGenerator generator = new ExpressionGenerator(10);
+        for (int i = 0; i < 2000; i++) {
+            Expression expr = generator.generateExpression(3);
+            assertTrue(generator.isValidExpression(expr), expr.toString());
+            assertFalse(generator.hasNegativeIntermediates(expr), expr.toString());
+            assertFalse(generator.hasDivisionWithImproperResult(expr), expr.toString());
+            // 缓存在节点上的值与重新计算的结果一致
+            assertEquals(ExpressionProgram.compile(expr).evaluate(), expr.evaluate());
+        }
+    }
+
+    @Test
+    void testConstructiveExpressionsAreValid() {
+        for (int range : new int[] {2, 3, 10, 100}) {
+            ExpressionGenerator generator = new ExpressionGenerator(range, true);
+            for (int i = 0; i < 2000; i++) {
+                Expression expr = generator.generateExpression(3);
+                assertTrue(generator.isValidExpression(expr), expr.toString());
+                assertEquals(expr.evaluate(), ExpressionParser.parse(expr.toString()).evaluate());
+            }
+        }
+    }
+
+    @Test
+    void testConstructiveGenerationWithLargeRange() {
+        // 范围很大时中间结果的分子分母会超出 long，构造过程不能因此失败
+        for (int range : new int[] {30000, 100000, 10000000}) {
+            ExpressionGenerator generator = new ExpressionGenerator(range, true, new SplittableRandom(1));
+            for (int i = 0; i < 5000; i++) {
+                Expression expr = generator.generateExpression(3);
+                assertTrue(generator.isValidExpression(expr), expr.toString());
+            }
+        }
+    }
+
+    @Test
+    void testValidationRules() {
+        ExpressionGenerator generator = new ExpressionGenerator(10);
+        assertTrue(generator.isValidExpression(ExpressionParser.parse("3 - 2 + 1")));
+        assertTrue(generator.isValidExpression(ExpressionParser.parse("2 ÷ 4")));
+        assertTrue(generator.isValidExpression(ExpressionParser.parse("8 ÷ 4")));
+        // 中间结果为负
+        assertFalse(generator.isValidExpression(ExpressionParser.parse("(1 - 2) + 3")));
+        assertFalse(generator.isValidExpression(ExpressionParser.parse("5 - (1 - 2)")));
+        // 除法结果既不是真分数也不是整数
+        assertFalse(generator.isValidExpression(ExpressionParser.parse("3 ÷ 2")));
+        assertFalse(generator.isValidExpression(ExpressionParser.parse("(3 ÷ 2) × 2")));
+        // 除以零
+        assertFalse(generator.isValidExpression(ExpressionParser.parse("1 + 2 ÷ (1 - 1)")));
+    }
+}
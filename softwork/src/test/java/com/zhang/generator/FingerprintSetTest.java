@@ -0,0 +1,62 @@
+package com.zhang.generator;
+
+import com.zhang.model.Expression;
+import com.zhang.utils.RPNEvaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FingerprintSetTest {
+
+    @Test
+    void testMatchesCanonicalRPNStrings() {
+        // 小范围下重复很多，指纹查重结果必须与按 RPN 字符串查重完全一致
+        ExpressionGenerator generator = new ExpressionGenerator(3);
+        FingerprintSet fingerprints = new FingerprintSet();
+        Set<String> signatures = new HashSet<>();
+        for (int i = 0; i < 50000; i++) {
+            Expression expr = generator.generateExpression(3);
+            String signature = RPNEvaluator.getCanonicalRPN(expr);
+            assertEquals(signatures.add(signature), fingerprints.add(expr), signature);
+            assertTrue(fingerprints.contains(expr));
+        }
+        assertEquals(signatures.size(), fingerprints.size());
+    }
+
+    @Test
+    void testGrowsAndKeepsAllEntries() {
+        FingerprintSet fingerprints = new FingerprintSet();
+        Random random = new Random(42);
+        long[][] entries = new long[100000][2];
+        for (long[] entry : entries) {
+            entry[0] = random.nextLong();
+            entry[1] = random.nextLong();
+            assertTrue(fingerprints.add(entry[0], entry[1]));
+        }
+        assertEquals(entries.length, fingerprints.size());
+        for (long[] entry : entries) {
+            assertTrue(fingerprints.contains(entry[0], entry[1]));
+            assertFalse(fingerprints.add(entry[0], entry[1]));
+        }
+
+        // 第一个哈希相同、第二个哈希不同时视为不同的指纹
+        assertFalse(fingerprints.contains(entries[0][0], entries[0][1] + 1));
+        assertTrue(fingerprints.add(entries[0][0], entries[0][1] + 1));
+        // 第一个哈希为 0 的指纹也能正常保存
+        assertTrue(fingerprints.add(0, 7));
+        assertTrue(fingerprints.contains(0, 7));
+    }
+
+    @Test
+    void testCapacityForExpectedSize() {
+        // 类注释中的内存占用：1 亿道题目需要 2^27 个槽位，每个槽位 16 字节，共 2GB
+        assertEquals(1 << 27, FingerprintSet.capacityFor(100_000_000));
+        assertEquals(1L << 31, 16L * FingerprintSet.capacityFor(100_000_000));
+        assertEquals(1 << 28, FingerprintSet.capacityFor(100_663_297)); // 超过 2^27 × 0.75
+        assertEquals(1 << 10, FingerprintSet.capacityFor(0));
+    }
+}
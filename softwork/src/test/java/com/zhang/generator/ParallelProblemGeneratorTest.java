@@ -0,0 +1,66 @@
+package com.zhang.generator;
+
+import com.zhang.utils.ExpressionEvaluator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelProblemGeneratorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSameSeedAndThreadsProduceSameOutput() throws IOException {
+        List<String> first = generate(4, 42, "a");
+        List<String> second = generate(4, 42, "b");
+        assertEquals(40000, first.size());
+        assertEquals(first, second);
+        assertNotEquals(first, generate(4, 43, "c"));
+    }
+
+    @Test
+    void testProblemsAreUniqueAndAnswersCorrect() throws IOException {
+        generate(3, 7, "d");
+        List<String> exercises = Files.readAllLines(directory.resolve("d-Exercises.txt"));
+        List<String> answers = Files.readAllLines(directory.resolve("d-Answers.txt"));
+        assertEquals(20000, exercises.size());
+        assertEquals(exercises.size(), answers.size());
+
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < exercises.size(); i++) {
+            String prefix = (i + 1) + ". ";
+            String exercise = exercises.get(i);
+            assertTrue(exercise.startsWith(prefix) && exercise.endsWith(" = "), exercise);
+            String expression = exercise.substring(prefix.length(), exercise.length() - 3);
+            assertTrue(seen.add(expression), expression);
+            assertEquals(prefix + ExpressionEvaluator.evaluate(expression), answers.get(i));
+        }
+    }
+
+    @Test
+    void testStopsWhenProblemsAreExhausted() throws IOException {
+        // 范围为 2 时不同的题目很少，达不到要求的数量时应停止而不是一直尝试
+        new ParallelProblemGenerator(2, false, 2, 1).generateProblems(100000,
+                directory.resolve("e-Exercises.txt").toString(), directory.resolve("e-Answers.txt").toString());
+        long lines = Files.readAllLines(directory.resolve("e-Exercises.txt")).size();
+        assertTrue(lines > 0 && lines < 100000, String.valueOf(lines));
+    }
+
+    private List<String> generate(int threads, long seed, String name) throws IOException {
+        Path exercises = directory.resolve(name + "-Exercises.txt");
+        Path answers = directory.resolve(name + "-Answers.txt");
+        new ParallelProblemGenerator(10, false, threads, seed).generateProblems(20000, exercises.toString(), answers.toString());
+        List<String> lines = Files.readAllLines(exercises);
+        lines.addAll(Files.readAllLines(answers));
+        return lines;
+    }
+}
@@ -0,0 +1,84 @@
+package com.zhang.generator;
+
+import com.zhang.model.Expression;
+import com.zhang.model.Fraction;
+import com.zhang.model.Operator;
+import com.zhang.model.Problem;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProblemCapacityTest {
+
+    @Test
+    void testNumberValuesMatchCount() {
+        for (int range = 1; range <= 30; range++) {
+            Fraction[] values = ProblemCapacity.numberValues(range);
+            assertEquals(ProblemCapacity.numberCount(range), values.length);
+            for (int i = 1; i < values.length; i++) {
+                assertTrue(values[i - 1].compareTo(values[i]) < 0);
+            }
+        }
+    }
+
+    @Test
+    void testCountMatchesBruteForce() {
+        for (int range = 2; range <= 3; range++) {
+            ExpressionGenerator validator = new ExpressionGenerator(range);
+            Fraction[] numbers = ProblemCapacity.numberValues(range);
+            long expected = 0;
+            for (Fraction number : numbers) {
+                expected += countValidChains(validator, new Expression(number), numbers, 3);
+            }
+            assertEquals(expected, ProblemCapacity.count(range, 3), "range " + range);
+        }
+    }
+
+    @Test
+    void testLargeRangeIsUnknown() {
+        assertEquals(ProblemCapacity.UNKNOWN, ProblemCapacity.count(100, 3));
+        assertTrue(ProblemCapacity.lowerBound(100) > 0);
+    }
+
+    @Test
+    void testLowerBoundSaturates() {
+        // 2·n² 在这些范围下超出 long，不能溢出为负数
+        assertEquals(Long.MAX_VALUE, ProblemCapacity.lowerBound(4096));
+        assertEquals(2L * 10000 * 10000, ProblemCapacity.lowerBound(10000)); // 只计自然数
+        assertTrue(ProblemCapacity.lowerBound(Integer.MAX_VALUE) > 0);
+        assertEquals(ProblemCapacity.UNKNOWN, ProblemCapacity.count(Integer.MAX_VALUE, 3));
+    }
+
+    @Test
+    void testGeneratorStopsAtCapacity() {
+        long capacity = ProblemCapacity.count(2, 3);
+        Iterator<Problem> problems = new ProblemGenerator(2).iterator();
+        long count = 0;
+        while (problems.hasNext()) {
+            problems.next();
+            count++;
+        }
+        assertTrue(count > 0 && count <= capacity, count + " / " + capacity);
+    }
+
+    /**
+     * 以 left 为左侧，在其后追加最多 operators 个 "运算符 数值"，统计有效的链数（不含 left 本身）
+     */
+    private static long countValidChains(ExpressionGenerator validator, Expression left, Fraction[] numbers, int operators) {
+        if (operators == 0) {
+            return 0;
+        }
+        long count = 0;
+        for (Operator operator : Operator.values()) {
+            for (Fraction number : numbers) {
+                Expression chain = new Expression(left, operator, new Expression(number));
+                if (validator.isValidExpression(chain)) {
+                    count += 1 + countValidChains(validator, chain, numbers, operators - 1);
+                }
+            }
+        }
+        return count;
+    }
+}
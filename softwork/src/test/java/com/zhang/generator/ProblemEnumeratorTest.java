@@ -0,0 +1,98 @@
+package com.zhang.generator;
+
+import com.zhang.model.Expression;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProblemEnumeratorTest {
+
+    @Test
+    void testSizeMatchesCapacity() {
+        for (int range = 2; range <= 4; range++) {
+            assertEquals(ProblemCapacity.count(range, 3), new ProblemEnumerator(range, 3).size(), "range " + range);
+        }
+    }
+
+    @Test
+    void testRanksListEveryProblemOnce() {
+        ProblemEnumerator enumerator = new ProblemEnumerator(2, 3);
+        ExpressionGenerator validator = new ExpressionGenerator(2);
+        FingerprintSet seen = new FingerprintSet();
+        for (long rank = 0; rank < enumerator.size(); rank++) {
+            Expression expression = enumerator.get(rank);
+            assertFalse(expression.isLeaf());
+            assertTrue(validator.isValidExpression(expression), expression.toString());
+            assertTrue(seen.add(expression), "重复: " + expression);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> enumerator.get(enumerator.size()));
+    }
+
+    @Test
+    void testSampleDrawsWithoutReplacement() {
+        ProblemEnumerator enumerator = new ProblemEnumerator(2, 3);
+        Iterator<Expression> sample = enumerator.sample(new SplittableRandom(42));
+        Set<String> drawn = new HashSet<>();
+        while (sample.hasNext()) {
+            assertTrue(drawn.add(sample.next().toString()));
+        }
+        assertEquals(enumerator.size(), drawn.size());
+    }
+
+    @Test
+    void testSampleIsReproducible() {
+        ProblemEnumerator enumerator = new ProblemEnumerator(4, 3);
+        Iterator<Expression> first = enumerator.sample(new SplittableRandom(7));
+        Iterator<Expression> second = enumerator.sample(new SplittableRandom(7));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(first.next().toString(), second.next().toString());
+        }
+    }
+
+    @Test
+    void testLargeRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ProblemEnumerator(100, 3));
+    }
+
+    @Test
+    void testSwapTableSpreadsKeysOverLargeTables() {
+        // 超过 2^24 个槽位时，起始槽位仍应均匀分布在整个表中，而不是挤在前面
+        int capacity = 1 << 28;
+        int buckets = 256;
+        int keys = 1 << 22;
+        SplittableRandom random = new SplittableRandom(3);
+        long[][] samples = {new long[keys], new long[keys]};
+        for (int i = 0; i < keys; i++) {
+            samples[0][i] = random.nextLong(177_395_924L); // 范围 5 的题目数
+            samples[1][i] = i; // 连续的序号
+        }
+        for (long[] sample : samples) {
+            int[] counts = new int[buckets];
+            for (long key : sample) {
+                int slot = ProblemEnumerator.LongMap.home(key, capacity);
+                assertTrue(slot >= 0 && slot < capacity);
+                counts[slot / (capacity / buckets)]++;
+            }
+            for (int count : counts) {
+                assertEquals(keys / buckets, count, keys / buckets / 10);
+            }
+        }
+    }
+
+    @Test
+    void testSwapTableStoresEveryKey() {
+        ProblemEnumerator.LongMap map = new ProblemEnumerator.LongMap();
+        for (long key = 0; key < 1_000_000; key++) {
+            map.put(key * 7, key);
+        }
+        for (long key = 0; key < 1_000_000; key++) {
+            assertEquals(key, map.get(key * 7, -1));
+            assertEquals(-1, map.get(key * 7 + 1, -1));
+        }
+    }
+}
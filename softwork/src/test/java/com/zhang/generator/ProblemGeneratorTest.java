@@ -0,0 +1,48 @@
+package com.zhang.generator;
+
+import com.zhang.model.Problem;
+import com.zhang.utils.RPNEvaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProblemGeneratorTest {
+
+    @Test
+    void testProblemStreamIsLazyAndUnique() {
+        ProblemGenerator generator = new ProblemGenerator(10);
+        List<Problem> problems = generator.problems().limit(5000).collect(Collectors.toList());
+        assertEquals(5000, problems.size());
+
+        Set<String> signatures = new HashSet<>();
+        for (Problem problem : problems) {
+            assertFalse(problem.getExpression().isLeaf());
+            assertTrue(signatures.add(RPNEvaluator.getCanonicalRPN(problem.getExpression())));
+            assertEquals(problem.getExpression().evaluate(), problem.getAnswer());
+        }
+
+        // 后续取出的题目与之前的题目也不重复
+        generator.problems().limit(1000).forEach(problem ->
+                assertTrue(signatures.add(RPNEvaluator.getCanonicalRPN(problem.getExpression()))));
+    }
+
+    @Test
+    void testIteratorEndsWhenProblemsAreExhausted() {
+        Iterator<Problem> problems = new ProblemGenerator(2).iterator();
+        int count = 0;
+        while (problems.hasNext()) {
+            problems.next();
+            count++;
+        }
+        assertTrue(count > 0);
+        assertFalse(problems.hasNext());
+        assertThrows(NoSuchElementException.class, problems::next);
+    }
+}
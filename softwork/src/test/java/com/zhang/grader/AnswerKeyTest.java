@@ -0,0 +1,103 @@
+package com.zhang.grader;
+
+import com.zhang.model.Fraction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnswerKeyTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Path exercises = write("1. 1 + 2 = \n2. 1 ÷ 0 = \n3. big = \n");
+        Fraction big = new Fraction(BigInteger.TEN.pow(25), BigInteger.valueOf(3));
+        try (AnswerKey.Builder builder = new AnswerKey.Builder(exercises.toString())) {
+            builder.add(1, Fraction.valueOf(3));
+            builder.addError(2, "除数不能为零");
+            builder.add(3, big);
+            builder.commit(AnswerKey.contentHash(exercises));
+        }
+
+        AnswerKey key = AnswerKey.load(exercises.toString());
+        assertNotNull(key);
+        assertEquals(3, key.size());
+        assertTrue(key.next());
+        assertEquals(1, key.problemNumber());
+        assertEquals(Fraction.valueOf(3), key.answer());
+        assertNull(key.error());
+        assertTrue(key.next());
+        assertEquals(2, key.problemNumber());
+        assertNull(key.answer());
+        assertEquals("除数不能为零", key.error());
+        assertTrue(key.next());
+        assertEquals(big, key.answer());
+        assertFalse(key.next());
+    }
+
+    @Test
+    void testChangedExercisesInvalidateKey() throws IOException {
+        Path exercises = write("1. 1 + 2 = \n");
+        try (AnswerKey.Builder builder = new AnswerKey.Builder(exercises.toString())) {
+            builder.add(1, Fraction.valueOf(3));
+            builder.commit(AnswerKey.contentHash(exercises));
+        }
+        assertNotNull(AnswerKey.load(exercises.toString()));
+
+        write("1. 1 + 3 = \n"); // 大小不变，内容不同
+        assertNull(AnswerKey.load(exercises.toString()));
+    }
+
+    @Test
+    void testUncommittedKeyIsDiscarded() throws IOException {
+        Path exercises = write("1. 1 + 2 = \n");
+        try (AnswerKey.Builder builder = new AnswerKey.Builder(exercises.toString())) {
+            builder.add(1, Fraction.valueOf(3));
+        }
+        assertNull(AnswerKey.load(exercises.toString()));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testConcurrentBuildersDoNotInterfere() throws IOException {
+        Path exercises = write("1. 1 + 2 = \n2. 2 × 3 = \n");
+        byte[] hash = AnswerKey.contentHash(exercises);
+        try (AnswerKey.Builder first = new AnswerKey.Builder(exercises.toString());
+             AnswerKey.Builder second = new AnswerKey.Builder(exercises.toString())) {
+            // 两次评分交替写入，各自的临时文件互不影响
+            first.add(1, Fraction.valueOf(3));
+            second.add(1, Fraction.valueOf(3));
+            second.add(2, Fraction.valueOf(6));
+            first.add(2, Fraction.valueOf(6));
+            first.commit(hash);
+            second.commit(hash);
+        }
+
+        AnswerKey key = AnswerKey.load(exercises.toString());
+        assertNotNull(key);
+        assertTrue(key.next());
+        assertEquals(Fraction.valueOf(3), key.answer());
+        assertTrue(key.next());
+        assertEquals(2, key.problemNumber());
+        assertEquals(Fraction.valueOf(6), key.answer());
+        assertFalse(key.next());
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count()); // 题目文件和答案缓存，没有残留的临时文件
+        }
+    }
+
+    private Path write(String text) throws IOException {
+        return Files.write(directory.resolve("Exercises.txt"), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,61 @@
+package com.zhang.grader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchGraderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testGradesEachSubmissionAndWritesSummary() throws IOException {
+        Path exercises = write("Exercises.txt", "1. 1 + 2 = \n2. 3 × 4 = \n3. 1 ÷ 0 = \n4. 1/2 + 1/3 = \n");
+        Path answers = Files.createDirectory(directory.resolve("answers"));
+        write("answers/alice.txt", "1. 3\n2. 12\n3. 0\n4. 5/6\n");
+        write("answers/bob.txt", "1. 3\n2. 7\n3. 0\n4. 1\n");
+        write("answers/carol.txt", "1. 4\n2. 12\n"); // 只答了前两题
+        write("answers/notes.md", "不是答案文件\n");
+
+        List<Path> files = BatchGrader.findAnswerFiles(answers.toString());
+        assertEquals(3, files.size());
+        Path reports = directory.resolve("reports");
+        new BatchGrader(2, new Grader(false)).grade(exercises.toString(), files, reports);
+
+        assertEquals("正确: 3 (1, 2, 4)\n错误: 1 (3)\n", read(reports.resolve("alice.Grade.txt")));
+        assertEquals("正确: 1 (1)\n错误: 3 (2, 3, 4)\n", read(reports.resolve("bob.Grade.txt")));
+        assertEquals("正确: 1 (2)\n错误: 1 (1)\n", read(reports.resolve("carol.Grade.txt")));
+
+        String summary = read(reports.resolve(BatchGrader.SUMMARY_FILE));
+        assertTrue(summary.contains("alice.txt: 正确 3, 错误 1, 得分 75.0%"), summary);
+        assertTrue(summary.contains("bob.txt: 正确 1, 错误 3, 得分 25.0%"), summary);
+        assertTrue(summary.contains("carol.txt: 正确 1, 错误 1, 得分 25.0%"), summary);
+        assertTrue(summary.contains("平均得分: 41.7%"), summary);
+        assertTrue(summary.contains("错误最多的题目: 3 (2 人), 1 (1 人), 2 (1 人), 4 (1 人)"), summary);
+    }
+
+    @Test
+    void testGlobSelectsMatchingFiles() throws IOException {
+        write("a1.txt", "");
+        write("a2.txt", "");
+        write("b1.txt", "");
+        List<Path> files = BatchGrader.findAnswerFiles(directory.resolve("a*.txt").toString());
+        assertEquals(List.of(directory.resolve("a1.txt"), directory.resolve("a2.txt")), files);
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(directory.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).replace("\r\n", "\n");
+    }
+}
@@ -0,0 +1,85 @@
+package com.zhang.grader;
+
+import com.zhang.model.Fraction;
+import com.zhang.utils.ExpressionEvaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationCacheTest {
+
+    @Test
+    void testCountsHitsAndMisses() {
+        EvaluationCache cache = new EvaluationCache(64);
+        AtomicInteger evaluations = new AtomicInteger();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                Fraction value = cache.get(i + " + 1/2", expression -> {
+                    evaluations.incrementAndGet();
+                    return ExpressionEvaluator.evaluate(expression);
+                });
+                assertEquals(Fraction.valueOf(2 * i + 1, 2), value);
+            }
+        }
+        assertEquals(10, evaluations.get());
+        assertEquals(10, cache.missCount());
+        assertEquals(20, cache.hitCount());
+    }
+
+    @Test
+    void testBoundedAndEvictsLeastRecentlyUsed() {
+        EvaluationCache cache = new EvaluationCache(4); // 只有一组，组内 4 个槽位
+        assertEquals(4, cache.capacity());
+        for (int i = 0; i < 4; i++) {
+            cache.get(Integer.toString(i), ExpressionEvaluator::evaluate);
+        }
+        cache.get("0", ExpressionEvaluator::evaluate); // 0 变为最近使用
+        cache.get("4", ExpressionEvaluator::evaluate); // 淘汰 1
+        long misses = cache.missCount();
+        cache.get("0", ExpressionEvaluator::evaluate);
+        assertEquals(misses, cache.missCount());
+        cache.get("1", ExpressionEvaluator::evaluate);
+        assertEquals(misses + 1, cache.missCount());
+    }
+
+    @Test
+    void testErrorsAreNotCached() {
+        EvaluationCache cache = new EvaluationCache(16);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ArithmeticException.class, () -> cache.get("1 ÷ 0", ExpressionEvaluator::evaluate));
+        }
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void testConcurrentResultsMatchEvaluator() throws Exception {
+        EvaluationCache cache = new EvaluationCache(32); // 远小于不同表达式的个数，频繁淘汰
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int seed = t;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        int n = (i * 31 + seed) % 500;
+                        String expression = n + " × " + (n % 7 + 1) + " - 1/3";
+                        assertEquals(ExpressionEvaluator.evaluate(expression), cache.get(expression, ExpressionEvaluator::evaluate));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(80000, cache.hitCount() + cache.missCount());
+    }
+}
@@ -0,0 +1,119 @@
+package com.zhang.grader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLinesMatchReadLine() throws IOException {
+        String text = "1. 3 × 4 = \r\n2. 1/2 ÷ 1'1/3 = \r3. 5 - 2 = \n\n5. 7 + 1 = \r\n6. 最后一行";
+        Path file = write("Exercises.txt", text);
+
+        List<String> expected = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                expected.add(line);
+            }
+        }
+
+        try (LineIndex index = LineIndex.open(file.toString())) {
+            assertEquals(expected.size(), index.lineCount());
+            for (int i = expected.size() - 1; i >= 0; i--) {
+                assertEquals(expected.get(i), index.line(i));
+            }
+            assertEquals("2. 1/2 ÷ 1'1/3 = ", index.problem(2));
+            assertEquals("6. 最后一行", index.problem(6)); // 题号与行号错开时二分查找
+            assertNull(index.problem(4));
+            assertNull(index.problem(7));
+        }
+        assertTrue(Files.exists(LineIndex.indexPath(file)));
+    }
+
+    @Test
+    void testRebuildsWhenFileChanges() throws IOException {
+        Path file = write("Answers.txt", "1. 3\n2. 4\n");
+        try (LineIndex index = LineIndex.open(file.toString())) {
+            assertEquals("2. 4", index.problem(2));
+        }
+
+        write("Answers.txt", "1. 3\n2. 5/6\n3. 7\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        try (LineIndex index = LineIndex.open(file.toString())) {
+            assertEquals(3, index.lineCount());
+            assertEquals("2. 5/6", index.problem(2));
+        }
+    }
+
+    @Test
+    void testConcurrentBuildersDoNotInterfere() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 20000; i++) {
+            text.append(i).append(". ").append(i % 97).append('\n');
+        }
+        Path file = write("Answers.txt", text.toString());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 5; round++) {
+                Files.deleteIfExists(LineIndex.indexPath(file));
+                List<Future<String>> results = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    results.add(pool.submit(() -> {
+                        try (LineIndex index = LineIndex.open(file.toString())) {
+                            return index.lineCount() + " " + index.problem(12345);
+                        }
+                    }));
+                }
+                for (Future<String> result : results) {
+                    assertEquals("20000 12345. " + 12345 % 97, result.get());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count()); // 源文件和索引，没有残留的临时文件
+        }
+    }
+
+    @Test
+    void testParseProblemNumbers() {
+        ProblemNumberRuns numbers = ProblemNumberRuns.parse("3, 17,100-103,5");
+        assertEquals("(3, 17, 100, 101, 102, 103, 5)", numbers.toString());
+        PrimitiveIterator.OfInt iterator = numbers.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.nextInt();
+            count++;
+        }
+        assertEquals(numbers.size(), count);
+        assertThrows(IllegalArgumentException.class, () -> ProblemNumberRuns.parse("5-3"));
+        assertThrows(IllegalArgumentException.class, () -> ProblemNumberRuns.parse("0"));
+        assertThrows(IllegalArgumentException.class, () -> ProblemNumberRuns.parse("a"));
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.write(directory.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
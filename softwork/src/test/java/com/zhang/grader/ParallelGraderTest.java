@@ -0,0 +1,113 @@
+package com.zhang.grader;
+
+import com.zhang.generator.ProblemGenerator;
+import com.zhang.model.Problem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelGraderTest {
+
+    @TempDir
+    Path directory;
+
+    private final Grader grader = new Grader(false);
+
+    @Test
+    void testMatchesSingleThreadedGrading() throws IOException {
+        List<Problem> problems = new ProblemGenerator(10).problems().limit(2000).collect(Collectors.toList());
+        List<String> exercises = new ArrayList<>();
+        List<String> answers = new ArrayList<>();
+        for (int i = 0; i < problems.size(); i++) {
+            int number = i + 1;
+            exercises.add(i == 5 ? number + ". 无法解析 = " : number + ". " + problems.get(i).getExpression() + " = ");
+            if (i % 13 == 0) {
+                answers.add(number + ". 42/5"); // 多数是错误答案
+            } else if (i == 1234) {
+                answers.add(number + ". 答案"); // 无法解析的答案
+            } else {
+                answers.add(number + ". " + problems.get(i).getAnswer());
+            }
+        }
+
+        // 行结束符：\n、\r\n、单独的 \r 以及三者混合；最后一行有无换行符
+        for (String ending : new String[]{"\n", "\r\n", "\r", "mixed"}) {
+            for (boolean finalNewline : new boolean[]{true, false}) {
+                Path exerciseFile = write("Exercises.txt", exercises, ending, finalNewline);
+                // 答案比题目少、一样多、比题目多
+                for (int answerCount : new int[]{1500, 2000}) {
+                    Path answerFile = write("Answers.txt", answers.subList(0, answerCount), ending, finalNewline);
+                    assertSameReport(exerciseFile, answerFile);
+                }
+                List<String> longer = new ArrayList<>(answers);
+                longer.add("2001. 1");
+                longer.add("2002. 2");
+                assertSameReport(exerciseFile, write("Answers.txt", longer, ending, finalNewline));
+            }
+        }
+    }
+
+    @Test
+    void testEmptyFiles() throws IOException {
+        Path exerciseFile = write("Exercises.txt", List.of(), "\n", false);
+        Path answerFile = write("Answers.txt", List.of("1. 3"), "\n", true);
+        assertSameReport(exerciseFile, answerFile);
+        assertSameReport(answerFile, exerciseFile);
+    }
+
+    /**
+     * 以不同线程数和块大小并行评分（小块保证切分为多块），报告都应与单线程评分相同
+     */
+    private void assertSameReport(Path exerciseFile, Path answerFile) throws IOException {
+        ProblemNumberRuns correct = new ProblemNumberRuns();
+        ProblemNumberRuns wrong = new ProblemNumberRuns();
+        try (BufferedReader exercises = new BufferedReader(new FileReader(exerciseFile.toFile(), StandardCharsets.UTF_8));
+             BufferedReader userAnswers = new BufferedReader(new FileReader(answerFile.toFile(), StandardCharsets.UTF_8))) {
+            grader.grade(exercises, userAnswers, correct, wrong);
+        }
+        String expected = report(correct, wrong);
+
+        for (int threads : new int[]{1, 3, 8}) {
+            for (long minChunkSize : new long[]{1, 100, 4096}) {
+                ProblemNumberRuns parallelCorrect = new ProblemNumberRuns();
+                ProblemNumberRuns parallelWrong = new ProblemNumberRuns();
+                new ParallelGrader(threads, grader, minChunkSize)
+                        .grade(exerciseFile.toString(), answerFile.toString(), parallelCorrect, parallelWrong);
+                assertEquals(expected, report(parallelCorrect, parallelWrong),
+                        "threads=" + threads + ", minChunkSize=" + minChunkSize);
+            }
+        }
+    }
+
+    private static String report(ProblemNumberRuns correct, ProblemNumberRuns wrong) throws IOException {
+        StringBuilder report = new StringBuilder();
+        Grader.appendReport(report, correct, wrong);
+        return report.toString();
+    }
+
+    /**
+     * 按指定的行结束符写出各行，"mixed" 表示轮流使用 \n、\r\n 和 \r
+     */
+    private Path write(String name, List<String> lines, String ending, boolean finalNewline) throws IOException {
+        String[] endings = ending.equals("mixed") ? new String[]{"\n", "\r\n", "\r"} : new String[]{ending};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            text.append(lines.get(i));
+            if (i + 1 < lines.size() || finalNewline) {
+                text.append(endings[i % endings.length]);
+            }
+        }
+        return Files.write(directory.resolve(name), text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
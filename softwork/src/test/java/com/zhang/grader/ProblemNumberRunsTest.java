@@ -0,0 +1,165 @@
+package com.zhang.grader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProblemNumberRunsTest {
+
+    @Test
+    void testConsecutiveNumbersMergeIntoOneRun() {
+        ProblemNumberRuns numbers = new ProblemNumberRuns();
+        assertTrue(numbers.isEmpty());
+        assertEquals("()", numbers.toString());
+        for (int i = 1; i <= 100_000; i++) {
+            numbers.add(i);
+        }
+        assertEquals(1, numbers.runCount());
+        assertEquals(100_000, numbers.size());
+        assertFalse(numbers.isEmpty());
+    }
+
+    @Test
+    void testOutOfOrderAndRepeatedNumbersKeepAdditionOrder() {
+        ProblemNumberRuns numbers = new ProblemNumberRuns();
+        for (int number : new int[]{5, 6, 7, 3, 4, 4, 5, 1, 9, 10, 2}) {
+            numbers.add(number);
+        }
+        // 只有紧接着上一个题号的题号才并入同一游程
+        assertEquals(6, numbers.runCount()); // (5-7) (3-4) (4-5) (1) (9-10) (2)
+        assertEquals(11, numbers.size());
+        assertEquals("(5, 6, 7, 3, 4, 4, 5, 1, 9, 10, 2)", numbers.toString());
+        assertEquals(List.of(5, 6, 7, 3, 4, 4, 5, 1, 9, 10, 2), toList(numbers));
+    }
+
+    @Test
+    void testMatchesPlainList() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int round = 0; round < 100; round++) {
+            ProblemNumberRuns numbers = new ProblemNumberRuns();
+            List<Integer> expected = new ArrayList<>();
+            int next = random.nextInt(1, 100);
+            for (int i = 0; i < 1000; i++) {
+                int number = random.nextInt(4) == 0 ? random.nextInt(-5, 2000) : next; // 多数连续，偶尔跳跃
+                numbers.add(number);
+                expected.add(number);
+                next = number + 1;
+            }
+            assertEquals(expected.size(), numbers.size());
+            assertEquals(expected, toList(numbers));
+            assertEquals(expected.toString().replace('[', '(').replace(']', ')'), numbers.toString());
+        }
+    }
+
+    @Test
+    void testAlternatingNumbersSwitchToBits() {
+        // 对错交替时每个列表的游程个数等于题目数的一半，应改用位图
+        ProblemNumberRuns odd = new ProblemNumberRuns();
+        ProblemNumberRuns even = new ProblemNumberRuns();
+        for (int i = 1; i <= 1_000_000; i++) {
+            (i % 2 == 1 ? odd : even).add(i);
+        }
+        assertTrue(odd.usesBits());
+        assertTrue(even.usesBits());
+        assertEquals(500_000, odd.size());
+        assertEquals(500_000, odd.runCount());
+        PrimitiveIterator.OfInt numbers = even.iterator();
+        for (int i = 2; i <= 1_000_000; i += 2) {
+            assertEquals(i, numbers.nextInt());
+        }
+        assertFalse(numbers.hasNext());
+
+        // 题号不再递增时退回游程，顺序和重复题号照常保留
+        odd.add(3);
+        odd.add(3);
+        assertFalse(odd.usesBits());
+        assertEquals(500_002, odd.size());
+        String text = odd.toString();
+        assertTrue(text.startsWith("(1, 3, 5, "), text);
+        assertTrue(text.endsWith(", 999997, 999999, 3, 3)"), text);
+    }
+
+    @Test
+    void testMatchesPlainListAcrossRepresentations() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int round = 0; round < 50; round++) {
+            ProblemNumberRuns numbers = new ProblemNumberRuns();
+            List<Integer> expected = new ArrayList<>();
+            int next = 1;
+            for (int i = 0; i < 5000; i++) {
+                next += random.nextInt(1, 3); // 严格递增，多数不连续
+                if (i == 4000 && round % 2 == 0) {
+                    next = random.nextInt(1, next); // 一半的轮次中途回退
+                }
+                if (i == 4500 && round % 5 == 0) {
+                    next += 1_000_000; // 大幅跳跃，位图会很稀疏
+                }
+                numbers.add(next);
+                expected.add(next);
+            }
+            assertEquals(expected.size(), numbers.size());
+            assertEquals(expected, toList(numbers));
+            ProblemNumberRuns copy = new ProblemNumberRuns();
+            copy.addAll(numbers);
+            assertEquals(numbers.toString(), copy.toString());
+        }
+    }
+
+    @Test
+    void testIntegerLimits() {
+        ProblemNumberRuns numbers = new ProblemNumberRuns();
+        numbers.add(Integer.MAX_VALUE - 1);
+        numbers.add(Integer.MAX_VALUE);
+        numbers.add(Integer.MIN_VALUE); // 不会因为溢出而并入上一个游程
+        assertEquals(2, numbers.runCount());
+        assertEquals(List.of(Integer.MAX_VALUE - 1, Integer.MAX_VALUE, Integer.MIN_VALUE), toList(numbers));
+    }
+
+    @Test
+    void testAddAllAppendsAndMergesAtTheBoundary() {
+        ProblemNumberRuns first = ProblemNumberRuns.parse("1-3");
+        ProblemNumberRuns second = ProblemNumberRuns.parse("4-6,10");
+        first.addAll(second);
+        assertEquals("(1, 2, 3, 4, 5, 6, 10)", first.toString());
+        assertEquals(2, first.runCount());
+        assertEquals(7, first.size());
+        assertEquals(4, second.size()); // 参数不变
+    }
+
+    @Test
+    void testAppendTo() throws IOException {
+        StringBuilder out = new StringBuilder("错误: ");
+        ProblemNumberRuns.parse("3, 1-2").appendTo(out);
+        assertEquals("错误: (3, 1, 2)", out.toString());
+
+        out.setLength(0);
+        new ProblemNumberRuns().appendTo(out);
+        assertEquals("()", out.toString());
+    }
+
+    @Test
+    void testParse() {
+        assertEquals("(3, 17, 100, 101, 102)", ProblemNumberRuns.parse("3,17,100-102").toString());
+        assertEquals("(7, 8, 9)", ProblemNumberRuns.parse(" 7 - 9 ").toString());
+        for (String invalid : new String[]{"", "0", "-1", "5-3", "a", "1,,2", "1-", "3-x", "99999999999"}) {
+            assertThrows(IllegalArgumentException.class, () -> ProblemNumberRuns.parse(invalid), invalid);
+        }
+    }
+
+    private static List<Integer> toList(ProblemNumberRuns numbers) {
+        List<Integer> list = new ArrayList<>();
+        PrimitiveIterator.OfInt iterator = numbers.iterator();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextInt());
+        }
+        assertThrows(NoSuchElementException.class, iterator::nextInt);
+        return list;
+    }
+}
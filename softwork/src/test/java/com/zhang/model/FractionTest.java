@@ -0,0 +1,170 @@
+package com.zhang.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FractionTest {
+
+    @Test
+    void testArithmeticIsReduced() {
+        assertEquals(new Fraction(5, 6), new Fraction(1, 2).add(new Fraction(1, 3)));
+        assertEquals(new Fraction(1, 6), new Fraction(1, 2).subtract(new Fraction(1, 3)));
+        assertEquals(new Fraction(1, 3), new Fraction(2, 3).multiply(new Fraction(1, 2)));
+        assertEquals(new Fraction(4, 3), new Fraction(2, 3).divide(new Fraction(1, 2)));
+        assertEquals(new Fraction(-1, 2), new Fraction(1, 2).divide(new Fraction(-1)));
+        assertEquals(new Fraction(0), new Fraction(1, 4).subtract(new Fraction(2, 8)));
+    }
+
+    @Test
+    void testOverflowPromotesToBigInteger() {
+        // 旧实现在 int 下会溢出回绕
+        Fraction big = new Fraction(Long.MAX_VALUE, 7);
+        Fraction product = big.multiply(big);
+        BigInteger expected = BigInteger.valueOf(Long.MAX_VALUE).pow(2);
+        assertEquals(new Fraction(expected, BigInteger.valueOf(49)), product);
+        assertFalse(product.isNegative());
+
+        // 除回原值后应当降回 long 快速路径，与直接构造的值相等
+        assertEquals(big, product.divide(big));
+        assertEquals(big.hashCode(), product.divide(big).hashCode());
+    }
+
+    @Test
+    void testLargeRangeAddition() {
+        Fraction a = new Fraction(999_983, 999_979);
+        Fraction b = new Fraction(999_961, 999_959);
+        Fraction sum = a;
+        for (int i = 0; i < 6; i++) {
+            sum = sum.multiply(a).add(b);
+        }
+        // 使用 BigInteger 独立计算结果进行核对
+        BigInteger n = BigInteger.valueOf(999_983);
+        BigInteger d = BigInteger.valueOf(999_979);
+        for (int i = 0; i < 6; i++) {
+            n = n.multiply(BigInteger.valueOf(999_983)).multiply(BigInteger.valueOf(999_959))
+                    .add(BigInteger.valueOf(999_961).multiply(d).multiply(BigInteger.valueOf(999_979)));
+            d = d.multiply(BigInteger.valueOf(999_979)).multiply(BigInteger.valueOf(999_959));
+        }
+        assertEquals(new Fraction(n, d), sum);
+        assertTrue(sum.compareTo(a) > 0);
+    }
+
+    @Test
+    void testToStringAndParseRoundTrip() {
+        assertEquals("2'1/3", new Fraction(7, 3).toString());
+        assertEquals("-2'1/3", new Fraction(-7, 3).toString());
+        assertEquals(new Fraction(7, 3), Fraction.parse("2'1/3"));
+        assertEquals(new Fraction(3, 4), Fraction.parse(" 3/4 "));
+
+        Fraction huge = new Fraction(BigInteger.TEN.pow(30).add(BigInteger.ONE), BigInteger.TEN.pow(25));
+        assertEquals(huge, Fraction.parse(huge.toString()));
+        assertThrows(ArithmeticException.class, () -> Fraction.parse("1/0"));
+        assertThrows(IllegalArgumentException.class, () -> Fraction.parse("abc"));
+    }
+
+    @Test
+    void testParseMatchesRegexFormats() {
+        String[] inputs = {
+                "0", "7", " 7 ", "\t5\u000B", "007", "3/4", "6/8", "0/5", "1'1/2", "2'0/3", "0'3/4", "1'4/2",
+                "0/0", "1/0", "1'1/0", // 分母为零
+                "", " ", "/", "'", "1/", "/2", "1'", "1'2", "1'2/", "'1/2", "1''1/2", "1'/2", "1/2/3", "1'2/3/4",
+                "1 /2", "1/ 2", "1' 1/2", "1 1/2", "+1", "-1", "-1/2", "1.5", "1e3", "abc", "1a", "１", "1\u00a0",
+                "99999999999999999", "999999999999999999", "9999999999999999999", "99999999999999999999/3",
+                "123456789012345678901234567890/7", "1'99999999999999999999/100000000000000000000",
+                "99999999999999999999'1/2", "9223372036854775807/1", "9223372036854775808/2",
+        };
+        for (String input : inputs) {
+            Object expected;
+            try {
+                expected = oldParse(input);
+            } catch (RuntimeException e) {
+                expected = e.getClass();
+            }
+            Object actual;
+            try {
+                actual = Fraction.parse(input);
+            } catch (RuntimeException e) {
+                actual = e.getClass();
+            }
+            assertEquals(expected, actual, input);
+        }
+    }
+
+    /**
+     * 改为逐字符扫描之前按正则表达式识别整数、a/b 和 a'b/c，用 BigInteger 计算，作为对照
+     */
+    private static Fraction oldParse(String str) {
+        str = str.trim();
+        if (str.matches("\\d+")) {
+            return new Fraction(new BigInteger(str), BigInteger.ONE);
+        }
+        Matcher proper = Pattern.compile("(\\d+)/(\\d+)").matcher(str);
+        if (proper.matches()) {
+            return new Fraction(new BigInteger(proper.group(1)), new BigInteger(proper.group(2)));
+        }
+        Matcher mixed = Pattern.compile("(\\d+)'(\\d+)/(\\d+)").matcher(str);
+        if (mixed.matches()) {
+            BigInteger denominator = new BigInteger(mixed.group(3));
+            return new Fraction(new BigInteger(mixed.group(1)).multiply(denominator).add(new BigInteger(mixed.group(2))),
+                    denominator);
+        }
+        throw new IllegalArgumentException("无效的分数格式: " + str);
+    }
+
+    @Test
+    void testMutableFractionMatchesFraction() {
+        Fraction[] values = {new Fraction(3, 4), new Fraction(5), new Fraction(2, 7, 9), new Fraction(Long.MAX_VALUE, 3)};
+        MutableFraction accumulator = new MutableFraction();
+        MutableFraction operand = new MutableFraction();
+        for (Operator op : Operator.values()) {
+            for (Fraction left : values) {
+                for (Fraction right : values) {
+                    Fraction expected = op == Operator.ADD ? left.add(right)
+                            : op == Operator.SUBTRACT ? left.subtract(right)
+                            : op == Operator.MULTIPLY ? left.multiply(right)
+                            : left.divide(right);
+                    accumulator.set(left).apply(op, operand.set(right));
+                    assertEquals(expected, accumulator.toFraction(), left + " " + op.getSymbol() + " " + right);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testValueOfReturnsCanonicalInstances() {
+        Fraction.cacheRange(10);
+        assertSame(Fraction.valueOf(1, 2), Fraction.valueOf(3, 6));
+        assertSame(Fraction.valueOf(1, 2), Fraction.parse("1/2"));
+        assertSame(Fraction.valueOf(7), Fraction.valueOf(3, 1, 2).add(Fraction.valueOf(7, 2)));
+        assertSame(Fraction.valueOf(0), Fraction.valueOf(1, 3).subtract(Fraction.valueOf(2, 6)));
+        assertEquals(new Fraction(5, 3), Fraction.valueOf(1, 2, 3));
+        assertEquals(new Fraction(1_000_001, 1_000_003), Fraction.valueOf(1_000_001, 1_000_003));
+        assertEquals(new Fraction(-1, 2), Fraction.valueOf(-2, 4));
+    }
+
+    @Test
+    void testExpressionProgramFallsBackOnOverflow() {
+        Expression big = new Expression(new Fraction(Long.MAX_VALUE / 2, 3));
+        Expression expr = new Expression(new Expression(big, Operator.MULTIPLY, big), Operator.DIVIDE, big);
+        assertEquals(new Fraction(Long.MAX_VALUE / 2, 3), ExpressionProgram.compile(expr).evaluate());
+
+        Expression zero = new Expression(new Expression(new Fraction(1)), Operator.SUBTRACT, new Expression(new Fraction(1)));
+        Expression divideByZero = new Expression(new Expression(new Fraction(2)), Operator.DIVIDE, zero);
+        assertThrows(ArithmeticException.class, () -> ExpressionProgram.compile(divideByZero).evaluate());
+    }
+
+    @Test
+    void testGcdTableMatchesEuclid() {
+        GcdTable.prepare(16);
+        for (long a = 0; a <= GcdTable.limit() + 2; a++) {
+            for (long b = 0; b <= GcdTable.limit() + 2; b += 7) {
+                assertEquals(GcdTable.euclid(a, b), GcdTable.gcd(a, b), "gcd(" + a + ", " + b + ")");
+            }
+        }
+    }
+}
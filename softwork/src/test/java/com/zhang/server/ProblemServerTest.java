@@ -0,0 +1,100 @@
+package com.zhang.server;
+
+import com.zhang.grader.Grader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProblemServerTest {
+    private ProblemServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new ProblemServer(0, 1, new Grader(false), false, 5000, 16 * 1024);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void testGeneratedProblemsGradeAsCorrect() throws Exception {
+        HttpResponse<String> generated = get("/generate?n=50&r=10");
+        assertEquals(200, generated.statusCode());
+        assertEquals("50", generated.headers().firstValue("X-Problem-Count").orElse(null));
+        String[] parts = generated.body().split("\n\n");
+        assertEquals(2, parts.length);
+        assertEquals(50, parts[0].split("\n").length);
+        assertTrue(parts[0].startsWith("1. "));
+
+        HttpResponse<String> graded = post("/grade", generated.body());
+        assertEquals(200, graded.statusCode());
+        assertTrue(graded.body().startsWith("正确: 50 (1, 2, "), graded.body());
+        assertTrue(graded.body().contains("错误: 0 ()"), graded.body());
+    }
+
+    @Test
+    void testGeneratorIsReusedAcrossRequests() throws Exception {
+        // 范围 2 只有 3260 道不同的题目，每次请求都应重新开始查重
+        for (int i = 0; i < 3; i++) {
+            HttpResponse<String> generated = get("/generate?n=3000&r=2");
+            assertEquals("3000", generated.headers().firstValue("X-Problem-Count").orElse(null));
+        }
+    }
+
+    @Test
+    void testGradeReportsWrongAnswers() throws Exception {
+        HttpResponse<String> graded = post("/grade", "1. 1 + 2 = \n2. 1 ÷ 0 = \n3. 1/2 + 1/3 = \n\n1. 3\n2. 0\n3. 1\n");
+        assertEquals(200, graded.statusCode());
+        assertEquals("正确: 1 (1)\n错误: 2 (2, 3)\n", graded.body().replace("\r\n", "\n"));
+    }
+
+    @Test
+    void testRejectsInvalidRequests() throws Exception {
+        assertEquals(400, get("/generate?n=5001&r=10").statusCode());
+        assertEquals(400, get("/generate?n=abc&r=10").statusCode());
+        assertEquals(400, get("/generate?r=10").statusCode());
+        assertEquals(400, post("/grade", "1. 1 + 2 = \n").statusCode());
+        assertEquals(405, get("/grade").statusCode());
+        assertEquals(413, post("/grade", "1. 1 + 2 = \n".repeat(2000)).statusCode());
+        assertEquals(404, get("/unknown").statusCode()); // 内置的 404 响应会关闭连接，放在最后
+    }
+
+    @Test
+    void testBusyServerRejectsRequests() throws Exception {
+        server.permits.acquire(); // 占用唯一的计算名额
+        try {
+            assertEquals(503, get("/generate?n=1&r=10").statusCode());
+        } finally {
+            server.permits.release();
+        }
+        assertEquals(200, get("/generate?n=1&r=10").statusCode());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path))
+                        .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)).build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+}
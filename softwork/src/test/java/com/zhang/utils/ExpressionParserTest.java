@@ -0,0 +1,51 @@
+package com.zhang.utils;
+
+import com.zhang.generator.ExpressionGenerator;
+import com.zhang.model.Expression;
+import com.zhang.model.ExpressionProgram;
+import com.zhang.model.Fraction;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionParserTest {
+
+    @Test
+    void testParseRoundTrip() {
+        ExpressionGenerator generator = new ExpressionGenerator(20);
+        for (int i = 0; i < 2000; i++) {
+            Expression expr = generator.generateExpression(3);
+            Expression parsed = ExpressionParser.parse(expr.toString());
+            assertEquals(expr.toString(), parsed.toString());
+            assertEquals(expr.evaluate(), parsed.evaluate());
+            assertEquals(expr.evaluate(), ExpressionEvaluator.evaluate(expr.toString()));
+            assertEquals(expr.evaluate(), ExpressionProgram.compile(expr).evaluate());
+        }
+    }
+
+    @Test
+    void testParseWhitespaceAndMixedNumbers() {
+        assertEquals(new Fraction(45, 8), ExpressionParser.parse("(1'1/2+3)×5/4÷1").evaluate());
+        assertEquals(new Fraction(2), ExpressionParser.parse("  7 -  2 - 3 ").evaluate());
+        assertEquals(new Fraction(7), ExpressionParser.parse("1 + 2 × 3").evaluate());
+    }
+
+    @Test
+    void testParseErrorsReportPosition() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("1 + 2x"));
+        assertEquals("无效标记: 2x (位置 4)", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("1 + 3/"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("(1 + 2"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("1 + 2)"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("1 +"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("1 2"));
+        assertThrows(ArithmeticException.class, () -> ExpressionParser.parse("1/0 + 2"));
+
+        for (String invalid : new String[] {"1 + 2x", "1 + 3/", "(1 + 2", "1 + 2)", "1 +", "1 2", "× 3"}) {
+            IllegalArgumentException expected = assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse(invalid));
+            IllegalArgumentException actual = assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.evaluate(invalid));
+            assertEquals(expected.getMessage(), actual.getMessage(), invalid);
+        }
+        assertThrows(ArithmeticException.class, () -> ExpressionEvaluator.evaluate("2 ÷ (1 - 1)"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.zhang.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineDecoderTest {
+    // 改为逐字符扫描之前 Grader 使用的正则表达式，作为对照
+    private static final Pattern PROBLEM_NUMBER = Pattern.compile("^(\\d+)\\.");
+    private static final Pattern ANSWER = Pattern.compile("^\\d+\\.\\s+(.+)$");
+
+    private static final String[] EXERCISES = {
+            "1. 1 + 2 = ",
+            "12. 3 × 4 =",
+            "3.  1/2 + 1/3  =  ",
+            "4.\t5 ÷ 6 = ",
+            "5.\u000B1'1/2 - 1 =\f",
+            "0012. 1 = ",
+            "2147483647. 1 = ",
+            "5.1 + 2 = ", // 题号后没有空白
+            "6 . 1 + 2 = ",
+            ".5 = ",
+            "1 + 2 = ", // 没有题号
+            "7. 1 + 2 ", // 没有 "="
+            "8. 1 + 2", // 没有 "=" 也没有结尾空白
+            "8. 1 + 2 = 3",
+            "9. 1 + 2 ==",
+            "9. 1 + 2 = = ",
+            "10. = ",
+            "10. =",
+            "11.",
+            "11. ",
+            "11.  ",
+            "",
+            " ",
+            "=",
+            "1. 1 + 2 =\u2028", // 正则表达式的 $ 可以匹配在末尾的行结束符之前
+            "2. 1 + 2 = \u2029",
+            "2. 1 + 2\u0085",
+            "2. 1 + 2 =\u2028\u2028",
+            "2. 1 + 2 = \r\n",
+            " 1. 1 + 2 = ",
+            "1.\u00a01 + 2 = ", // 不间断空格不是 \s
+            "１. 1 + 2 = ", // 全角数字不是 \d
+    };
+
+    private static final String[] ANSWERS = {
+            "1. 3",
+            "2. 3/4",
+            "3. 1'1/2",
+            "4.  5 ",
+            "5.\t7",
+            "6.\u000B\f8\t",
+            "7.3", // 题号后没有空白
+            "8. ",
+            "8.  ",
+            "8.   ",
+            "9.",
+            "10 3",
+            "3",
+            "",
+            " 1. 3",
+            "11. abc",
+            "12. 3 / 4",
+            "13.\u00a03", // 不间断空格不是 \s
+            "14. 3\u2028", // 行分隔符不是 \s，但正则表达式的 $ 可以匹配在它之前
+            "15. 3\u0085",
+            "16. 3\r\n",
+            "17. 3\u2028x", // "." 不匹配行结束符
+            "18. 3\u2028\u2028",
+            "19.\u2028 3",
+            "20. \n3",
+            "21. \u2028",
+            "22. \u2029 3",
+            "１. 3",
+    };
+
+    @Test
+    void testProblemNumberMatchesRegex() {
+        for (String line : EXERCISES) {
+            assertEquals(outcome(() -> oldProblemNumber(line)), outcome(() -> LineDecoder.problemNumber(line)), line);
+        }
+        for (String line : ANSWERS) {
+            assertEquals(outcome(() -> oldProblemNumber(line)), outcome(() -> LineDecoder.problemNumber(line)), line);
+        }
+        // 超出 int 范围的题号与 Integer.parseInt 一样抛出异常
+        assertThrows(NumberFormatException.class, () -> LineDecoder.problemNumber("2147483648. 1 = "));
+        assertThrows(NumberFormatException.class, () -> LineDecoder.problemNumber("99999999999999999999. 1 = "));
+        assertEquals(2147483647, LineDecoder.problemNumber("2147483647. 1 = "));
+        assertEquals(12, LineDecoder.problemNumber("0012. 1 = "));
+    }
+
+    @Test
+    void testExpressionMatchesRegex() {
+        for (String line : EXERCISES) {
+            assertEquals(oldExpression(line), LineDecoder.expression(line), line);
+        }
+        assertEquals("1 + 2", LineDecoder.expression("1. 1 + 2 = "));
+        assertEquals("1 + 2", LineDecoder.expression("7. 1 + 2"));
+        assertEquals("1 + 2 =", LineDecoder.expression("9. 1 + 2 = = "));
+        assertEquals("5.1 + 2", LineDecoder.expression("5.1 + 2 = "));
+    }
+
+    @Test
+    void testAnswerMatchesRegex() {
+        for (String line : ANSWERS) {
+            assertEquals(oldAnswer(line), LineDecoder.answer(line), line);
+        }
+        for (String line : EXERCISES) {
+            assertEquals(oldAnswer(line), LineDecoder.answer(line), line);
+        }
+        assertEquals("1'1/2", LineDecoder.answer("3. 1'1/2"));
+        assertEquals("", LineDecoder.answer("8.  "));
+        assertNull(LineDecoder.answer("8. "));
+        assertNull(LineDecoder.answer("7.3"));
+    }
+
+    private static int oldProblemNumber(String line) {
+        Matcher matcher = PROBLEM_NUMBER.matcher(line);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+
+    private static String oldExpression(String line) {
+        String expression = line.replaceAll("^\\d+\\.\\s+", "").trim();
+        return expression.replaceAll("\\s*=\\s*$", "").trim();
+    }
+
+    private static String oldAnswer(String line) {
+        Matcher matcher = ANSWER.matcher(line);
+        return matcher.find() ? matcher.group(1).trim() : null;
+    }
+
+    /**
+     * 返回值或抛出的异常类型，用于比较两种实现的行为
+     */
+    private static Object outcome(Supplier<Object> action) {
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.zhang.utils;
+
+import com.zhang.generator.ProblemGenerator;
+import com.zhang.model.Expression;
+import com.zhang.model.Fraction;
+import com.zhang.model.Operator;
+import com.zhang.model.Problem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProblemSetFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testTextRoundTrip() throws IOException {
+        List<Problem> problems = new ProblemGenerator(20).problems().limit(3000).collect(Collectors.toList());
+        List<String> exercises = new ArrayList<>();
+        List<String> answers = new ArrayList<>();
+        for (int i = 0; i < problems.size(); i++) {
+            exercises.add((i + 1) + ". " + problems.get(i).getExpression() + " = ");
+            answers.add((i + 1) + ". " + problems.get(i).getAnswer());
+        }
+        Path exerciseFile = Files.write(directory.resolve("Exercises.txt"), exercises);
+        Path answerFile = Files.write(directory.resolve("Answers.txt"), answers);
+        String binary = directory.resolve("problems.bin").toString();
+
+        assertEquals(problems.size(), ProblemSetFile.fromText(exerciseFile.toString(), answerFile.toString(), binary));
+        assertTrue(ProblemSetFile.isProblemSet(binary));
+        assertFalse(ProblemSetFile.isProblemSet(exerciseFile.toString()));
+
+        // 随机访问，倒序读取
+        try (ProblemSetFile.Reader reader = ProblemSetFile.open(binary)) {
+            assertEquals(problems.size(), reader.size());
+            for (int i = problems.size() - 1; i >= 0; i--) {
+                ProblemSetFile.Entry entry = reader.get(i);
+                assertEquals(i + 1, entry.getProblemNumber());
+                assertEquals(problems.get(i).getAnswer(), entry.getAnswer());
+                assertEquals(problems.get(i).getAnswer(), entry.getProgram().evaluate());
+            }
+        }
+
+        Path exercisesBack = directory.resolve("Exercises2.txt");
+        Path answersBack = directory.resolve("Answers2.txt");
+        ProblemSetFile.toText(binary, exercisesBack.toString(), answersBack.toString());
+        assertEquals(exercises, Files.readAllLines(exercisesBack));
+        assertEquals(answers, Files.readAllLines(answersBack));
+    }
+
+    @Test
+    void testLargeNumbersAndMissingAnswers() throws IOException {
+        Path file = directory.resolve("big.bin");
+        Fraction big = new Fraction(BigInteger.TEN.pow(30), BigInteger.valueOf(7));
+        Expression expression = new Expression(new Expression(big), Operator.ADD, new Expression(Fraction.valueOf(1, 2)));
+        try (ProblemSetFile.Writer writer = new ProblemSetFile.Writer(file)) {
+            writer.add(1, expression, expression.evaluate());
+            writer.add(2, expression, null);
+            writer.add(3, new Expression(Fraction.valueOf(-3, 4)), Fraction.valueOf(-3, 4));
+        }
+        try (ProblemSetFile.Reader reader = ProblemSetFile.open(file.toString())) {
+            assertEquals(3, reader.size());
+            assertEquals(expression.evaluate(), reader.get(0).getAnswer());
+            assertEquals(expression.toString(), reader.get(1).getProgram().toExpression().toString());
+            assertNull(reader.get(1).getAnswer());
+            assertEquals(Fraction.valueOf(-3, 4), reader.get(2).getAnswer());
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.get(3));
+        }
+    }
+
+    @Test
+    void testRecordsSpanningMappedRegions() throws IOException {
+        List<Problem> problems = new ProblemGenerator(50).problems().limit(500).collect(Collectors.toList());
+        Path file = directory.resolve("regions.bin");
+        try (ProblemSetFile.Writer writer = new ProblemSetFile.Writer(file)) {
+            for (int i = 0; i < problems.size(); i++) {
+                writer.add(i + 1, problems.get(i).getExpression(), problems.get(i).getAnswer());
+            }
+        }
+        // 分段很小且不是 8 的倍数，记录、文件头和索引项都会跨越分段边界
+        for (int regionSize : new int[]{7, 13, 64}) {
+            try (ProblemSetFile.Reader reader = new ProblemSetFile.Reader(file, regionSize)) {
+                assertEquals(problems.size(), reader.size());
+                for (int i = 0; i < problems.size(); i++) {
+                    ProblemSetFile.Entry entry = reader.get(i);
+                    assertEquals(i + 1, entry.getProblemNumber());
+                    assertEquals(problems.get(i).getAnswer(), entry.getAnswer());
+                    assertEquals(problems.get(i).getExpression().toString(),
+                            entry.getProgram().toExpression().toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFailedConversionLeavesNoProblemSet() throws IOException {
+        Path exerciseFile = Files.write(directory.resolve("Exercises.txt"), List.of("1. 1 + 2 = ", "2. 1 + + 2 = "));
+        Path answerFile = Files.write(directory.resolve("Answers.txt"), List.of("1. 3", "2. 3"));
+        Path binary = directory.resolve("problems.bin");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ProblemSetFile.fromText(exerciseFile.toString(), answerFile.toString(), binary.toString()));
+        assertFalse(Files.exists(binary));
+
+        // 已有的题目集保持不变
+        Files.write(binary, new byte[]{1, 2, 3});
+        assertThrows(IllegalArgumentException.class,
+                () -> ProblemSetFile.fromText(exerciseFile.toString(), answerFile.toString(), binary.toString()));
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(binary));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count()); // 没有残留的临时文件
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.zhang.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Utf8FileWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEncodesLikeStringGetBytes() throws IOException {
+        String text = "1. (3 - 1/2) × 4 ÷ 2'1/3 = 正确 😀 lone \uD800 end \uDC00";
+        StringBuilder expected = new StringBuilder();
+        Path file = directory.resolve("out.txt");
+        // 很小的缓冲区，覆盖字符和代理对跨越缓冲区边界的情况
+        try (Utf8FileWriter writer = new Utf8FileWriter(file, true, 32)) {
+            for (int i = 0; i < 200; i++) {
+                writer.print(i).print(". ").println(text);
+                writer.print(Long.MIN_VALUE).print(Long.MAX_VALUE).print(-42L).append('×').append(text, 3, 9).println();
+                expected.append(i).append(". ").append(text).append(System.lineSeparator());
+                expected.append(Long.MIN_VALUE).append(Long.MAX_VALUE).append(-42L).append('×').append(text, 3, 9).append(System.lineSeparator());
+            }
+        }
+        assertArrayEquals(expected.toString().getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file));
+    }
+
+    @Test
+    void testOverwritesExistingFile() throws IOException {
+        Path file = directory.resolve("existing.txt");
+        Files.write(file, "a much longer previous content".getBytes(StandardCharsets.UTF_8));
+        try (Utf8FileWriter writer = new Utf8FileWriter(file.toString())) {
+            writer.print("new");
+        }
+        assertEquals("new", Files.readString(file));
+    }
+}